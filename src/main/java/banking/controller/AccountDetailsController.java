@@ -1,28 +1,36 @@
 package banking.controller;
 
 import banking.dao.AccountDAO;
-import banking.dao.impl.TextFileAccountDAO;
+import banking.dao.TransactionDAO;
+import banking.dao.TransactionQuery;
+import banking.dao.impl.DAORegistry;
 import banking.model.Account;
+import banking.model.Transaction;
+import banking.util.PostingEngine;
 import banking.view.AccountDetailsView;
 import javafx.stage.Stage;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class AccountDetailsController {
     private Account account;
     private Stage stage;
     private CustomerDashboardController parentController;
     private AccountDAO accountDAO;
+    private TransactionDAO transactionDAO;
+    private PostingEngine postingEngine;
 
     public AccountDetailsController(Account account, Stage stage, CustomerDashboardController parentController) {
         this.account = account;
         this.stage = stage;
         this.parentController = parentController;
-        this.accountDAO = new TextFileAccountDAO();
+        this.accountDAO = DAORegistry.getInstance().getAccountDAO();
+        this.transactionDAO = DAORegistry.getInstance().getTransactionDAO();
+        this.postingEngine = new PostingEngine(accountDAO);
     }
 
     public void handleDeposit(double amount) {
-        if (account.deposit(amount)) {
-            // Save the updated account to file (this will also save the new transaction)
-            accountDAO.updateAccount(account);
+        if (postingEngine.deposit(account, amount)) {
             System.out.println("Deposit successful: P" + amount + " to account " + account.getAccountNumber());
         } else {
             System.out.println("Deposit failed");
@@ -30,9 +38,7 @@ public class AccountDetailsController {
     }
 
     public void handleWithdraw(double amount) {
-        if (account.withdraw(amount)) {
-            // Save the updated account to file (this will also save the new transaction)
-            accountDAO.updateAccount(account);
+        if (postingEngine.withdraw(account, amount)) {
             System.out.println("Withdrawal successful: P" + amount + " from account " + account.getAccountNumber());
         } else {
             System.out.println("Withdrawal failed");
@@ -43,6 +49,16 @@ public class AccountDetailsController {
         account.printStatement();
     }
 
+    /**
+     * Newest transactions first, reading no more than the requested page from the ledger
+     */
+    public List<Transaction> getRecentTransactions(int offset, int limit) {
+        return transactionDAO.streamTransactions(TransactionQuery.forAccount(account.getAccountNumber())
+                        .newestFirst()
+                        .page(offset, limit))
+                .collect(Collectors.toList());
+    }
+
     public Account getAccount() {
         return account;
     }
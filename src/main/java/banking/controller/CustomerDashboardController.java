@@ -1,8 +1,9 @@
 package banking.controller;
 
 import banking.dao.AccountDAO;
-import banking.dao.impl.TextFileAccountDAO;
+import banking.dao.impl.DAORegistry;
 import banking.model.*;
+import banking.util.PostingEngine;
 import banking.view.*;
 import javafx.stage.Stage;
 
@@ -10,11 +11,13 @@ public class CustomerDashboardController {
     private Customer customer;
     private Stage stage;
     private AccountDAO accountDAO;
+    private PostingEngine postingEngine;
 
     public CustomerDashboardController(Customer customer, Stage stage) {
         this.customer = customer;
         this.stage = stage;
-        this.accountDAO = new TextFileAccountDAO();
+        this.accountDAO = DAORegistry.getInstance().getAccountDAO();
+        this.postingEngine = new PostingEngine(accountDAO);
 
         // Load the latest account data from files
         refreshCustomerAccounts();
@@ -34,9 +37,7 @@ public class CustomerDashboardController {
 
     public void handleDeposit(String accountNumber, double amount) {
         Account account = customer.getAccountByNumber(accountNumber);
-        if (account != null && account.deposit(amount)) {
-            // Save the updated account to file (this will also save the new transaction)
-            accountDAO.updateAccount(account);
+        if (account != null && postingEngine.deposit(account, amount)) {
             System.out.println("Deposit successful for account: " + accountNumber + ", Amount: P" + amount);
             // Refresh customer accounts to show updated balance
             refreshCustomerAccounts();
@@ -47,9 +48,7 @@ public class CustomerDashboardController {
 
     public void handleWithdraw(String accountNumber, double amount) {
         Account account = customer.getAccountByNumber(accountNumber);
-        if (account != null && account.withdraw(amount)) {
-            // Save the updated account to file (this will also save the new transaction)
-            accountDAO.updateAccount(account);
+        if (account != null && postingEngine.withdraw(account, amount)) {
             System.out.println("Withdrawal successful for account: " + accountNumber + ", Amount: P" + amount);
             // Refresh customer accounts to show updated balance
             refreshCustomerAccounts();
@@ -62,13 +61,8 @@ public class CustomerDashboardController {
         Account source = customer.getAccountByNumber(fromAccount);
         Account target = customer.getAccountByNumber(toAccount);
 
-        if (source != null && target != null && source.withdraw(amount)) {
-            target.deposit(amount);
-
-            // Save both accounts to file
-            accountDAO.updateAccount(source);
-            accountDAO.updateAccount(target);
-
+        // Both legs are applied and saved together, or not at all
+        if (source != null && target != null && postingEngine.transfer(source, target, amount)) {
             System.out.println("Transfer successful from " + fromAccount + " to " + toAccount + ": P" + amount);
             // Refresh customer accounts to show updated balances
             refreshCustomerAccounts();
@@ -96,14 +90,9 @@ public class CustomerDashboardController {
      * Reload customer's accounts from the database/file
      */
     private void refreshCustomerAccounts() {
-        // Clear existing accounts
-        customer.getAccounts().clear();
-
-        // Reload from file
+        // Replace existing accounts with those from file
         java.util.List<Account> accounts = accountDAO.findAccountsByCustomer(customer.getCustomerId());
-        for (Account account : accounts) {
-            customer.addAccount(account);
-        }
+        customer.setAccounts(accounts);
 
         System.out.println("Refreshed accounts for customer: " + customer.getName() +
                 " - Total accounts: " + accounts.size());
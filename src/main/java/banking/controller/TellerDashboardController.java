@@ -3,23 +3,39 @@ package banking.controller;
 import banking.dao.*;
 import banking.dao.impl.*;
 import banking.model.*;
+import banking.util.IdGenerator;
+import banking.util.InterestBatchEngine;
+import banking.util.MonthEndInterestJob;
+import banking.util.PostingEngine;
 import banking.view.*;
 import javafx.stage.Stage;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class TellerDashboardController {
     private Stage stage;
     private CustomerDAO customerDAO;
     private AccountDAO accountDAO;
     private UserDAO userDAO;
+    private TransactionDAO transactionDAO;
+    private PostingEngine postingEngine;
     private List<Customer> customers;
+    // Lookup indexes over the loaded customers, kept in step with every change made here
+    private final Map<String, Customer> customersById = new HashMap<>();
+    private final Map<String, Customer> customersByAccount = new HashMap<>();
+    private final Map<String, Account> accountsByNumber = new HashMap<>();
 
     public TellerDashboardController(Stage stage) {
         this.stage = stage;
-        this.customerDAO = new TextFileCustomerDAO();
-        this.accountDAO = new TextFileAccountDAO();
-        this.userDAO = new TextFileUserDAO();
+        DAORegistry registry = DAORegistry.getInstance();
+        this.customerDAO = registry.getCustomerDAO();
+        this.accountDAO = registry.getAccountDAO();
+        this.userDAO = registry.getUserDAO();
+        this.transactionDAO = registry.getTransactionDAO();
+        this.postingEngine = new PostingEngine(accountDAO);
         this.customers = new ArrayList<>();
 
         // Load all data from existing text files
@@ -36,9 +52,8 @@ public class TellerDashboardController {
         // Load accounts for each customer
         for (Customer customer : customers) {
             List<Account> customerAccounts = accountDAO.findAccountsByCustomer(customer.getCustomerId());
-            for (Account account : customerAccounts) {
-                customer.addAccount(account);
-            }
+            customer.setAccounts(customerAccounts);
+            indexCustomer(customer);
             System.out.println("Customer " + customer.getName() + " has " + customerAccounts.size() + " accounts");
         }
     }
@@ -48,23 +63,28 @@ public class TellerDashboardController {
     }
 
     public Customer findCustomerById(String customerId) {
-        return customers.stream()
-                .filter(c -> c.getCustomerId().equals(customerId))
-                .findFirst()
-                .orElse(null);
+        return customersById.get(customerId);
     }
 
     public Customer findCustomerByAccount(String accountNumber) {
-        for (Customer customer : customers) {
-            if (customer.getAccountByNumber(accountNumber) != null) {
-                return customer;
-            }
+        return customersByAccount.get(accountNumber);
+    }
+
+    private void indexCustomer(Customer customer) {
+        customersById.put(customer.getCustomerId(), customer);
+        for (Account account : customer.getAccounts()) {
+            indexAccount(customer, account);
         }
-        return null;
+    }
+
+    private void indexAccount(Customer customer, Account account) {
+        customersByAccount.put(account.getAccountNumber(), customer);
+        accountsByNumber.put(account.getAccountNumber(), account);
     }
 
     public void createNewCustomer(Customer customer) {
         customers.add(customer);
+        indexCustomer(customer);
         customerDAO.saveCustomer(customer);
 
         // AUTO-CREATE USER ACCOUNT FOR THE NEW CUSTOMER
@@ -76,6 +96,7 @@ public class TellerDashboardController {
 
     public void openNewAccount(Customer customer, Account account) {
         customer.addAccount(account);
+        indexAccount(customer, account);
         accountDAO.saveAccount(account);
 
         // Reload customer accounts to ensure data is synchronized
@@ -84,46 +105,63 @@ public class TellerDashboardController {
     }
 
     public boolean processDeposit(String accountNumber, double amount) {
-        Customer customer = findCustomerByAccount(accountNumber);
-        if (customer != null) {
-            Account account = customer.getAccountByNumber(accountNumber);
-            if (account != null && account.deposit(amount)) {
-                accountDAO.updateAccount(account);
-                System.out.println("Deposit processed: P" + amount + " to account " + accountNumber);
-                return true;
-            }
+        Account account = accountsByNumber.get(accountNumber);
+        if (account != null && postingEngine.deposit(account, amount)) {
+            System.out.println("Deposit processed: P" + amount + " to account " + accountNumber);
+            return true;
         }
         return false;
     }
 
     public boolean processWithdrawal(String accountNumber, double amount) {
-        Customer customer = findCustomerByAccount(accountNumber);
-        if (customer != null) {
-            Account account = customer.getAccountByNumber(accountNumber);
-            if (account != null && account.withdraw(amount)) {
-                accountDAO.updateAccount(account);
-                System.out.println("Withdrawal processed: P" + amount + " from account " + accountNumber);
-                return true;
-            }
+        Account account = accountsByNumber.get(accountNumber);
+        if (account != null && postingEngine.withdraw(account, amount)) {
+            System.out.println("Withdrawal processed: P" + amount + " from account " + accountNumber);
+            return true;
         }
         return false;
     }
 
-    public void applyInterestToAllAccounts() {
-        int accountsProcessed = 0;
-        for (Customer customer : customers) {
-            for (Account account : customer.getAccounts()) {
-                double interestBefore = account.calculateInterest();
-                if (interestBefore > 0) {
-                    account.applyInterest();
-                    accountDAO.updateAccount(account);
-                    accountsProcessed++;
-                    System.out.println("Interest applied to account " + account.getAccountNumber() +
-                            ": P" + String.format("%.2f", interestBefore));
-                }
-            }
-        }
-        System.out.println("Total accounts processed for interest: " + accountsProcessed);
+    /**
+     * Snapshot of every loaded account, e.g. to hand to a background job
+     */
+    public List<Account> getAllAccounts() {
+        return new ArrayList<>(accountsByNumber.values());
+    }
+
+    /**
+     * Run (or resume) this month's interest job; accounts already paid for the month are skipped
+     */
+    public InterestBatchEngine.Result applyInterestToAllAccounts() {
+        return applyInterest(getAllAccounts());
+    }
+
+    /**
+     * Run (or resume) this month's interest job over the given accounts.
+     * Touches no controller state, so it can run off the JavaFX thread
+     */
+    public InterestBatchEngine.Result applyInterest(List<Account> accounts) {
+        InterestBatchEngine.Result result = new MonthEndInterestJob(accountDAO).run(accounts);
+        System.out.println(result);
+        System.out.println("Total accounts processed for interest: " + result.getAccountsCredited());
+        return result;
+    }
+
+    /**
+     * One page of an account's transaction history, newest first
+     */
+    public List<Transaction> getTransactionHistory(String accountNumber, int offset, int limit) {
+        return transactionDAO.streamTransactions(TransactionQuery.forAccount(accountNumber)
+                        .newestFirst()
+                        .page(offset, limit))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Number of transactions on an account, from the ledger's index rather than its records
+     */
+    public long countTransactions(String accountNumber) {
+        return transactionDAO.countTransactions(accountNumber);
     }
 
     /**
@@ -131,6 +169,9 @@ public class TellerDashboardController {
      */
     public void refreshData() {
         customers.clear();
+        customersById.clear();
+        customersByAccount.clear();
+        accountsByNumber.clear();
         loadAllDataFromFiles();
     }
 
@@ -145,7 +186,7 @@ public class TellerDashboardController {
             }
 
             // Generate unique account number
-            String accountNumber = "ACC" + String.format("%03d", (int)(System.currentTimeMillis() % 1000));
+            String accountNumber = IdGenerator.getInstance().nextAccountNumber();
 
             // Create the appropriate account type
             Account account;
@@ -1,6 +1,7 @@
 package banking.dao;
 
 import banking.model.Account;
+import java.util.Collection;
 import java.util.List;
 
 public interface AccountDAO {
@@ -9,4 +10,6 @@ public interface AccountDAO {
     List<Account> findAccountsByCustomer(String customerId);
     List<Account> findAllAccounts();
     void updateAccount(Account account);
+    void updateAccounts(Collection<Account> accounts);
+    void refreshAccounts(Collection<Account> accounts);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package banking.dao;
+
+import java.util.List;
+
+/**
+ * Thrown when an update is based on a stale copy of an account: another instance saved a newer
+ * version first. Nothing was written; reload the accounts (AccountDAO.refreshAccounts) and redo the change.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> accountNumbers;
+
+    public ConcurrentUpdateException(List<String> accountNumbers) {
+        super("Accounts changed by another instance: " + String.join(", ", accountNumbers));
+        this.accountNumbers = List.copyOf(accountNumbers);
+    }
+
+    public List<String> getAccountNumbers() {
+        return accountNumbers;
+    }
+}
@@ -1,10 +1,30 @@
 package banking.dao;
 
 import banking.model.Transaction;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface TransactionDAO {
     void saveTransaction(Transaction transaction, String accountNumber);
+    CompletableFuture<Void> saveTransactionAsync(Transaction transaction, String accountNumber);
+    void saveTransactions(List<Transaction> transactions, String accountNumber);
+    void saveTransactions(Map<String, List<Transaction>> transactionsByAccount);
+
+    /**
+     * As saveTransactions, but throws if the transactions could not be written
+     */
+    void writeTransactions(Map<String, List<Transaction>> transactionsByAccount) throws IOException;
+
+    /**
+     * Throw if writeTransactions could never store these transactions, so a posting is refused
+     * before it is committed rather than left waiting for the ledger
+     */
+    void checkTransactions(Map<String, List<Transaction>> transactionsByAccount) throws IOException;
+
     List<Transaction> findTransactionsByAccount(String accountNumber);
-    List<Transaction> findAllTransactions();
+    long countTransactions(String accountNumber);
+    Stream<Transaction> streamTransactions(TransactionQuery query);
 }
\ No newline at end of file
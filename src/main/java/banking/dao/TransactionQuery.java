@@ -0,0 +1,88 @@
+package banking.dao;
+
+import banking.model.Transaction;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Criteria for streaming transactions from a TransactionDAO.
+ * Filters (account, date range, type) are applied first, then ordering, then offset/limit.
+ *
+ * Example: TransactionQuery.forAccount("ACC001").newestFirst().page(0, 20)
+ */
+public class TransactionQuery {
+    private String accountNumber;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String type;
+    private long offset;
+    private long limit = -1;
+    private boolean newestFirst;
+
+    private TransactionQuery(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public static TransactionQuery allAccounts() {
+        return new TransactionQuery(null);
+    }
+
+    public static TransactionQuery forAccount(String accountNumber) {
+        return new TransactionQuery(accountNumber);
+    }
+
+    /**
+     * Only transactions at or after from and before to (either may be null for open-ended)
+     */
+    public TransactionQuery between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public TransactionQuery ofType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public TransactionQuery page(long offset, long limit) {
+        this.offset = offset;
+        this.limit = limit;
+        return this;
+    }
+
+    public TransactionQuery newestFirst() {
+        this.newestFirst = true;
+        return this;
+    }
+
+    // Getters
+    public String getAccountNumber() { return accountNumber; }
+    public boolean isNewestFirst() { return newestFirst; }
+
+    /**
+     * Check a transaction against the date range and type filters
+     */
+    public boolean matches(Transaction transaction) {
+        if (type != null && !type.equals(transaction.getType())) return false;
+        if (from != null && transaction.getTimestamp().isBefore(from)) return false;
+        if (to != null && !transaction.getTimestamp().isBefore(to)) return false;
+        return true;
+    }
+
+    /**
+     * Lazily apply the filters and paging to transactions already in the requested order.
+     * Null entries (records that could not be parsed) are skipped
+     */
+    public Stream<Transaction> apply(Iterator<Transaction> orderedTransactions) {
+        Stream<Transaction> stream = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(orderedTransactions, Spliterator.ORDERED),
+                false);
+        stream = stream.filter(transaction -> transaction != null && matches(transaction)).skip(offset);
+        return limit >= 0 ? stream.limit(limit) : stream;
+    }
+}
@@ -0,0 +1,502 @@
+package banking.dao.impl;
+
+import banking.dao.TransactionDAO;
+import banking.model.Transaction;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of account records sitting in front of accounts.txt.
+ * Updates append the account's full record to the journal; the current state is the
+ * base file overlaid with the latest journal record per account number.
+ * A background compactor periodically folds the journal into a new base file.
+ * Updates are committed as one frame ("#BEGIN|n", n lines, "#END") holding the account records
+ * and their new transactions ("#TXN|" lines), synced to disk as the Durability level asks.
+ * Replay applies a frame only if it is complete, so a commit cut off by a crash leaves no
+ * partial update; transactions of committed frames are re-applied to the ledger on startup
+ * if the crash came before they reached it. If writing them to the ledger fails, the commit
+ * still stands and a "#LEDGER_PENDING" line is appended; while it is there, compaction first
+ * re-applies the journal's transactions to the ledger, and skips compacting if that fails.
+ * Several processes may share the files: every read-check-write holds a file lock
+ * (data/accounts.txt.lock), and each process keeps the current records in memory, reading
+ * only what other processes appended since its last look, so commits hold the lock briefly.
+ * Commits are written by one writer thread per process (group commit): the frames queued while
+ * it was busy are checked one after another and written in one append with one sync, and all
+ * their transactions go to the ledger in one write.
+ */
+public class AccountJournal {
+    private static final String ACCOUNTS_FILE = DataFiles.path("accounts.txt");
+    private static final String JOURNAL_FILE = DataFiles.path("accounts.journal");
+    private static final String FRAME_BEGIN = "#BEGIN|";
+    private static final String FRAME_END = "#END";
+    private static final String TRANSACTION_PREFIX = "#TXN|";
+    private static final String LEDGER_PENDING = "#LEDGER_PENDING"; // no '|', so never taken for a record
+    private static final long COMPACTION_INTERVAL_SECONDS =
+            Long.getLong("banking.journal.compactSeconds", 30);
+    private static final int MAX_GROUP_SIZE = 1_024; // frames per journal write
+
+    // Shared by every DAO instance (and process) since they all work on the same files
+    private static final DataFileLock FILE_LOCK = DataFileLock.forFile(ACCOUNTS_FILE);
+    private static ScheduledExecutorService compactor;
+    private static volatile LedgerAction ledgerRecovery; // re-applies journalled transactions, see startCompactor
+
+    // Group commit: committing threads queue frames, one writer thread writes them in batches
+    private static final BlockingQueue<PendingFrame> queue = new LinkedBlockingQueue<>();
+    private static volatile Thread writerThread;
+
+    // This process's view of the current record per account, guarded by FILE_LOCK (see catchUp)
+    private static final Map<String, String> committed = new LinkedHashMap<>();
+    private static long baseGeneration = -1; // lock file generation committed was read at (see compact)
+    private static long baseReadUpTo;
+    private static long journalReadUpTo;
+    private static boolean ledgerPending; // a LEDGER_PENDING line was read from the journal
+
+    private AccountJournal() {
+    }
+
+    /**
+     * Append a new account record to the base file
+     */
+    public static void appendBase(String record) throws IOException {
+        FILE_LOCK.acquire();
+        try {
+            DataFiles.append(ACCOUNTS_FILE, writer -> {
+                writer.newLine(); // Ends any line torn by an earlier crash, as in commit
+                writer.write(record);
+                writer.newLine();
+            });
+        } finally {
+            FILE_LOCK.release();
+        }
+    }
+
+    /**
+     * Commit updated account records and their new transactions as one all-or-nothing frame.
+     * check first sees the current record of every account, as committed by any process (and by the
+     * frames written before this one), and may throw to abandon the commit before anything is written.
+     * The frame is synced to disk (as the durability level asks) before the transactions are written
+     * to the ledger through transactionDAO, still under the lock, so the journal is not compacted
+     * ahead of the ledger. If the ledger write fails, the commit stands and the frame is kept in the
+     * journal until its transactions are re-applied (see compact). Blocks until the frame is written
+     * or refused
+     */
+    public static void commit(List<String> records, Map<String, List<Transaction>> transactionsByAccount,
+                              TransactionDAO transactionDAO, Consumer<Map<String, String>> check) throws IOException {
+        if (records.isEmpty()) return;
+
+        PendingFrame frame = new PendingFrame(records, transactionsByAccount, transactionDAO, check);
+        if (writerThread == null) {
+            startWriter();
+        }
+        queue.add(frame);
+        try {
+            frame.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * The current record of each of the given accounts, as committed by any process
+     */
+    public static Map<String, String> readCommittedRecords(Collection<String> accountNumbers) throws IOException {
+        FILE_LOCK.acquire();
+        try {
+            catchUp();
+            Map<String, String> records = new LinkedHashMap<>();
+            for (String accountNumber : accountNumbers) {
+                String record = committed.get(accountNumber);
+                if (record != null) {
+                    records.put(accountNumber, record);
+                }
+            }
+            return records;
+        } finally {
+            FILE_LOCK.release();
+        }
+    }
+
+    /**
+     * Transaction records of every complete frame still in the journal, in commit order
+     */
+    public static List<String> readCommittedTransactions() throws IOException {
+        FILE_LOCK.acquire();
+        try {
+            List<String> transactions = new ArrayList<>();
+            forEachCommittedLine(JOURNAL_FILE, 0, line -> {
+                if (line.startsWith(TRANSACTION_PREFIX)) {
+                    transactions.add(line.substring(TRANSACTION_PREFIX.length()));
+                }
+            });
+            return transactions;
+        } finally {
+            FILE_LOCK.release();
+        }
+    }
+
+    /**
+     * Read the current record for every account, keyed by account number in base file order
+     */
+    public static Map<String, String> readCurrentRecords() throws IOException {
+        FILE_LOCK.acquire();
+        try {
+            Map<String, String> records = new LinkedHashMap<>();
+            readRecords(ACCOUNTS_FILE, 0, records);
+            readRecords(JOURNAL_FILE, 0, records);
+            return records;
+        } finally {
+            FILE_LOCK.release();
+        }
+    }
+
+    /**
+     * Fold the journal into a new base file and empty the journal. If the journal holds
+     * transactions that may be missing from the ledger, they are re-applied first, and the
+     * journal is left as it is if that fails
+     */
+    public static void compact() throws IOException {
+        FILE_LOCK.acquire();
+        try {
+            File journal = new File(JOURNAL_FILE);
+            if (!journal.exists() || journal.length() == 0) return;
+
+            catchUp();
+            if (ledgerPending) {
+                if (ledgerRecovery == null) return; // Nothing here can write the ledger; keep the frames
+                ledgerRecovery.run();
+            }
+            Collection<String> records = committed.values();
+            // Tell other processes to re-read: the new base file may even reuse the old one's inode.
+            // Advanced first, so a crash part way through costs them a re-read, never a missed compaction
+            long generation = FILE_LOCK.nextGeneration();
+            // Always synced, whatever the durability level: the journal is emptied next, so the
+            // new base file must be on disk first (compaction is off the request path anyway)
+            DataFiles.replace(ACCOUNTS_FILE, true, writer -> {
+                for (String record : records) {
+                    writer.write(record);
+                    writer.newLine();
+                }
+            });
+
+            // Replaying a journal that was already folded in is harmless, so a crash here loses nothing
+            new FileOutputStream(journal).close();
+
+            // committed already matches the new base file, so no need to re-read it
+            baseGeneration = generation;
+            baseReadUpTo = new File(ACCOUNTS_FILE).length();
+            journalReadUpTo = 0;
+            ledgerPending = false;
+        } finally {
+            FILE_LOCK.release();
+        }
+    }
+
+    /**
+     * Start the background compactor (once per process)
+     * @param recovery re-applies the journal's committed transactions (see readCommittedTransactions)
+     *                 that are missing from the ledger; run under the lock before compacting a
+     *                 journal whose ledger writes failed
+     */
+    public static synchronized void startCompactor(LedgerAction recovery) {
+        if (ledgerRecovery == null) {
+            ledgerRecovery = recovery;
+        }
+        if (compactor != null) return;
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("Error compacting account journal: " + e.getMessage());
+            }
+        }, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the background compactor, waiting for a running compaction to finish
+     */
+    public static synchronized void stopCompactor() {
+        if (compactor == null) return;
+
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor = null;
+    }
+
+    private static synchronized void startWriter() {
+        if (writerThread != null) return;
+
+        Thread thread = new Thread(AccountJournal::writeQueuedFrames, "account-journal-writer");
+        thread.setDaemon(true);
+        thread.start();
+        writerThread = thread;
+    }
+
+    /**
+     * Writer thread: take whatever frames are queued (up to MAX_GROUP_SIZE) and commit them together
+     */
+    private static void writeQueuedFrames() {
+        List<PendingFrame> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (true) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Committing threads are waiting on their frames, so the writer never stops
+            }
+            queue.drainTo(group, MAX_GROUP_SIZE - 1);
+            try {
+                writeGroup(group);
+            } catch (IOException | RuntimeException e) {
+                for (PendingFrame frame : group) {
+                    frame.future.completeExceptionally(e); // No effect on frames already refused
+                }
+            }
+            group.clear();
+        }
+    }
+
+    /**
+     * Check each frame against the committed records and the frames accepted before it, write the
+     * accepted frames in one append, then write all their transactions to the ledger in one write
+     */
+    private static void writeGroup(List<PendingFrame> group) throws IOException {
+        FILE_LOCK.acquire();
+        try {
+            catchUp();
+            List<PendingFrame> accepted = new ArrayList<>(group.size());
+            for (PendingFrame frame : group) {
+                try {
+                    frame.check.accept(Collections.unmodifiableMap(committed));
+                } catch (RuntimeException e) {
+                    frame.future.completeExceptionally(e);
+                    continue;
+                }
+                accepted.add(frame);
+                for (String record : frame.records) {
+                    putRecord(record, committed);
+                }
+            }
+            if (accepted.isEmpty()) return;
+
+            try {
+                DataFiles.append(JOURNAL_FILE, writer -> {
+                    for (PendingFrame frame : accepted) {
+                        frame.writeTo(writer);
+                    }
+                });
+            } catch (IOException e) {
+                // committed now holds frames that may not be on disk: re-read everything next time.
+                // Some may have reached the file whole, so mark their transactions for recovery
+                baseGeneration = -1;
+                markLedgerPending();
+                throw e;
+            }
+            journalReadUpTo = new File(JOURNAL_FILE).length();
+
+            // Frames normally share one TransactionDAO, so this is one ledger write for the group
+            Map<TransactionDAO, Map<String, List<Transaction>>> byDAO = new IdentityHashMap<>();
+            for (PendingFrame frame : accepted) {
+                Map<String, List<Transaction>> transactions = byDAO.computeIfAbsent(frame.transactionDAO,
+                        dao -> new LinkedHashMap<>());
+                for (Map.Entry<String, List<Transaction>> entry : frame.transactionsByAccount.entrySet()) {
+                    transactions.computeIfAbsent(entry.getKey(), a -> new ArrayList<>()).addAll(entry.getValue());
+                }
+            }
+            for (Map.Entry<TransactionDAO, Map<String, List<Transaction>>> entry : byDAO.entrySet()) {
+                if (entry.getValue().isEmpty()) continue;
+                try {
+                    entry.getKey().writeTransactions(entry.getValue());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Committed transactions not written to the ledger, kept in the account journal: "
+                            + e.getMessage());
+                    markLedgerPending();
+                }
+            }
+            for (PendingFrame frame : accepted) {
+                frame.future.complete(null);
+            }
+        } finally {
+            FILE_LOCK.release();
+        }
+    }
+
+    /**
+     * Bring committed up to date with the files, reading only what was appended since the last
+     * look, or everything again if another process replaced the base file (compacted).
+     * Caller holds FILE_LOCK
+     */
+    private static void catchUp() throws IOException {
+        long generation = FILE_LOCK.generation();
+        long baseLength = new File(ACCOUNTS_FILE).length();
+        long journalLength = new File(JOURNAL_FILE).length();
+        if (generation != baseGeneration || baseLength < baseReadUpTo || journalLength < journalReadUpTo) {
+            committed.clear();
+            baseGeneration = generation;
+            baseReadUpTo = 0;
+            journalReadUpTo = 0;
+            ledgerPending = false;
+        }
+
+        // New accounts are only ever appended to the base file, so its tail never overrides the journal
+        if (baseLength > baseReadUpTo) {
+            readRecords(ACCOUNTS_FILE, baseReadUpTo, committed);
+            baseReadUpTo = baseLength;
+        }
+        if (journalLength > journalReadUpTo) {
+            readRecords(JOURNAL_FILE, journalReadUpTo, committed);
+            journalReadUpTo = journalLength;
+        }
+    }
+
+    private static void readRecords(String fileName, long offset, Map<String, String> records) throws IOException {
+        forEachCommittedLine(fileName, offset, line -> {
+            if (line.equals(LEDGER_PENDING)) {
+                ledgerPending = true;
+            } else if (!line.startsWith(TRANSACTION_PREFIX)) {
+                putRecord(line, records);
+            }
+        });
+    }
+
+    /**
+     * Record in the journal that a committed frame's transactions may be missing from the ledger,
+     * so no process compacts it away before they are re-applied (caller holds FILE_LOCK)
+     */
+    private static void markLedgerPending() {
+        ledgerPending = true;
+        try {
+            DataFiles.append(JOURNAL_FILE, writer -> {
+                writer.newLine();
+                writer.write(LEDGER_PENDING);
+                writer.newLine();
+            });
+            journalReadUpTo = new File(JOURNAL_FILE).length();
+        } catch (IOException e) {
+            // Other processes may now compact the frame away; this one re-applies it before compacting
+            System.err.println("Error marking the account journal for ledger recovery: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pass every line outside a frame, and every line of a complete frame, to the action
+     */
+    private static void forEachCommittedLine(String fileName, long offset, Consumer<String> action) throws IOException {
+        if (!new File(fileName).exists()) return;
+
+        try (BufferedReader reader = DataFiles.openReader(fileName, offset)) {
+            List<String> frame = null; // lines of the frame being read, if any
+            int frameSize = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+
+                if (line.startsWith(FRAME_BEGIN)) {
+                    // A frame still open here was never finished, so it is dropped
+                    frame = new ArrayList<>();
+                    frameSize = parseFrameSize(line);
+                } else if (line.equals(FRAME_END)) {
+                    if (frame != null && frame.size() == frameSize) {
+                        frame.forEach(action);
+                    }
+                    frame = null;
+                } else if (frame != null) {
+                    frame.add(line);
+                } else {
+                    action.accept(line);
+                }
+            }
+        }
+    }
+
+    private static void putRecord(String line, Map<String, String> records) {
+        int separator = line.indexOf('|');
+        if (separator > 0) {
+            records.put(line.substring(0, separator), line);
+        }
+    }
+
+    /**
+     * Writes journalled transactions to the ledger, see startCompactor
+     */
+    @FunctionalInterface
+    public interface LedgerAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * A commit waiting for the writer thread, with the future its caller waits on
+     */
+    private static class PendingFrame {
+        private final List<String> records;
+        private final Map<String, List<Transaction>> transactionsByAccount;
+        private final List<String> transactionRecords; // formatted by the committing thread
+        private final TransactionDAO transactionDAO;
+        private final Consumer<Map<String, String>> check;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingFrame(List<String> records, Map<String, List<Transaction>> transactionsByAccount,
+                             TransactionDAO transactionDAO, Consumer<Map<String, String>> check) {
+            this.records = records;
+            this.transactionsByAccount = transactionsByAccount;
+            this.transactionDAO = transactionDAO;
+            this.check = check;
+            this.transactionRecords = new ArrayList<>();
+            RecordWriter writer = new RecordWriter();
+            for (Map.Entry<String, List<Transaction>> entry : transactionsByAccount.entrySet()) {
+                for (Transaction transaction : entry.getValue()) {
+                    transactionRecords.add(TextFileTransactionDAO.formatTransaction(writer, transaction, entry.getKey()));
+                }
+            }
+        }
+
+        private void writeTo(BufferedWriter writer) throws IOException {
+            writer.newLine(); // Ends any line torn by an earlier crash; blank lines are skipped on replay
+            writer.write(FRAME_BEGIN + (records.size() + transactionRecords.size()));
+            writer.newLine();
+            for (String record : records) {
+                writer.write(record);
+                writer.newLine();
+            }
+            for (String transaction : transactionRecords) {
+                writer.write(TRANSACTION_PREFIX);
+                writer.write(transaction);
+                writer.newLine();
+            }
+            writer.write(FRAME_END);
+            writer.newLine();
+        }
+    }
+
+    private static int parseFrameSize(String line) {
+        try {
+            return Integer.parseInt(line.substring(FRAME_BEGIN.length()));
+        } catch (NumberFormatException e) {
+            return -1; // Never matches, so the frame is ignored
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package banking.dao.impl;
+
+import banking.dao.AccountDAO;
+import banking.model.Account;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caching AccountDAO that loads all accounts once from the underlying DAO
+ * and serves lookups from in-memory hash indexes.
+ * Writes go through to the underlying DAO and keep the indexes in step.
+ * The underlying write runs outside this cache's lock: callers may hold account locks
+ * (see AccountLocks) that the write needs too, so holding both here could deadlock.
+ *
+ * Nothing is reloaded on lookup, so another instance's writes are only seen when they conflict:
+ * updating a cached account that changed elsewhere fails with ConcurrentUpdateException, and the
+ * caller's refreshAccounts reloads it in place (see PostingEngine). Accounts opened by another
+ * instance are not seen until the application is restarted.
+ */
+public class CachedAccountDAO implements AccountDAO {
+    private final AccountDAO delegate;
+    private Map<String, Account> accountsByNumber;
+    private Map<String, List<Account>> accountsByCustomer;
+
+    public CachedAccountDAO(AccountDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void saveAccount(Account account) {
+        delegate.saveAccount(account);
+        synchronized (this) {
+            ensureLoaded();
+            index(account);
+        }
+    }
+
+    @Override
+    public synchronized Account findAccountByNumber(String accountNumber) {
+        ensureLoaded();
+        return accountsByNumber.get(accountNumber);
+    }
+
+    @Override
+    public synchronized List<Account> findAccountsByCustomer(String customerId) {
+        ensureLoaded();
+        List<Account> customerAccounts = accountsByCustomer.get(customerId);
+        return customerAccounts != null ? new ArrayList<>(customerAccounts) : new ArrayList<>();
+    }
+
+    @Override
+    public synchronized List<Account> findAllAccounts() {
+        ensureLoaded();
+        return new ArrayList<>(accountsByNumber.values());
+    }
+
+    @Override
+    public void updateAccount(Account account) {
+        delegate.updateAccount(account);
+        synchronized (this) {
+            ensureLoaded();
+            index(account);
+        }
+    }
+
+    @Override
+    public void updateAccounts(Collection<Account> accounts) {
+        delegate.updateAccounts(accounts);
+        synchronized (this) {
+            ensureLoaded();
+            for (Account account : accounts) {
+                index(account);
+            }
+        }
+    }
+
+    /**
+     * Cached accounts are refreshed in place, so the indexes stay valid
+     */
+    @Override
+    public void refreshAccounts(Collection<Account> accounts) {
+        delegate.refreshAccounts(accounts);
+    }
+
+    private void ensureLoaded() {
+        if (accountsByNumber != null) return;
+
+        accountsByNumber = new LinkedHashMap<>();
+        accountsByCustomer = new HashMap<>();
+        for (Account account : delegate.findAllAccounts()) {
+            index(account);
+        }
+    }
+
+    private void index(Account account) {
+        Account previous = accountsByNumber.put(account.getAccountNumber(), account);
+        if (previous != null) {
+            List<Account> previousOwnerAccounts = accountsByCustomer.get(previous.getCustomer().getCustomerId());
+            if (previousOwnerAccounts != null) {
+                previousOwnerAccounts.remove(previous);
+            }
+        }
+        accountsByCustomer
+                .computeIfAbsent(account.getCustomer().getCustomerId(), id -> new ArrayList<>())
+                .add(account);
+    }
+}
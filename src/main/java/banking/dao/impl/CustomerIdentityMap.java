@@ -0,0 +1,65 @@
+package banking.dao.impl;
+
+import banking.model.Customer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide identity map so each customer is materialised as one Customer object,
+ * shared by every account and user that refers to it.
+ * Entries are weak, so a customer nothing else references can be garbage collected.
+ */
+public final class CustomerIdentityMap {
+    private static final Map<String, CustomerReference> customers = new HashMap<>();
+    private static final ReferenceQueue<Customer> collected = new ReferenceQueue<>();
+
+    private CustomerIdentityMap() {
+    }
+
+    /**
+     * Return the live instance for this customer ID, updated with the loaded details (which may
+     * have been changed by another instance), or register the loaded one if there is none (or its type changed)
+     */
+    public static synchronized Customer intern(Customer loaded) {
+        purgeCollected();
+        Customer existing = get(loaded.getCustomerId());
+        if (existing != null && existing.getClass() == loaded.getClass()) {
+            existing.copyDetailsFrom(loaded);
+            return existing;
+        }
+
+        customers.put(loaded.getCustomerId(), new CustomerReference(loaded));
+        return loaded;
+    }
+
+    /**
+     * Make this instance the live one for its customer ID (after a save or update)
+     */
+    public static synchronized void put(Customer customer) {
+        purgeCollected();
+        customers.put(customer.getCustomerId(), new CustomerReference(customer));
+    }
+
+    public static synchronized Customer get(String customerId) {
+        CustomerReference reference = customers.get(customerId);
+        return reference != null ? reference.get() : null;
+    }
+
+    private static void purgeCollected() {
+        CustomerReference reference;
+        while ((reference = (CustomerReference) collected.poll()) != null) {
+            customers.remove(reference.customerId, reference);
+        }
+    }
+
+    private static class CustomerReference extends WeakReference<Customer> {
+        private final String customerId;
+
+        private CustomerReference(Customer customer) {
+            super(customer, collected);
+            this.customerId = customer.getCustomerId();
+        }
+    }
+}
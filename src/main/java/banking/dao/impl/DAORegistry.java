@@ -0,0 +1,97 @@
+package banking.dao.impl;
+
+import banking.dao.AccountDAO;
+import banking.dao.CustomerDAO;
+import banking.dao.TransactionDAO;
+import banking.dao.UserDAO;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Process-wide registry holding one shared instance of each DAO.
+ * Controllers and views take their DAOs from here, so the account cache, customer
+ * identity map and transaction index are built once and reused by every screen.
+ * Set -Dbanking.transactions.store=mapped to keep transactions in the binary ledger, and
+ * -Dbanking.accounts.writeBehind=true to coalesce account writes (see WriteBehindAccountDAO).
+ */
+public final class DAORegistry {
+    private static final DAORegistry instance = new DAORegistry();
+
+    private final CustomerDAO customerDAO;
+    private final TransactionDAO transactionDAO;
+    private final CachedAccountDAO accountDAO;
+    private final WriteBehindAccountDAO writeBehind; // null unless enabled
+    private final UserDAO userDAO;
+    private boolean shutDown;
+
+    private DAORegistry() {
+        this.customerDAO = new TextFileCustomerDAO();
+        this.transactionDAO = "mapped".equalsIgnoreCase(System.getProperty("banking.transactions.store"))
+                ? new MappedTransactionDAO()
+                : new TextFileTransactionDAO();
+        AccountDAO accountStore = new TextFileAccountDAO(customerDAO, transactionDAO);
+        this.writeBehind = Boolean.getBoolean("banking.accounts.writeBehind")
+                ? new WriteBehindAccountDAO(accountStore)
+                : null;
+        this.accountDAO = new CachedAccountDAO(writeBehind != null ? writeBehind : accountStore);
+        this.userDAO = new TextFileUserDAO(customerDAO);
+    }
+
+    public static DAORegistry getInstance() {
+        return instance;
+    }
+
+    public CustomerDAO getCustomerDAO() {
+        return customerDAO;
+    }
+
+    public AccountDAO getAccountDAO() {
+        return accountDAO;
+    }
+
+    public UserDAO getUserDAO() {
+        return userDAO;
+    }
+
+    public TransactionDAO getTransactionDAO() {
+        return transactionDAO;
+    }
+
+    /**
+     * Load accounts (and with them every customer) into the cache before the first screen needs them
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        int accounts = accountDAO.findAllAccounts().size();
+        System.out.println("Warmed up " + accounts + " accounts in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Flush pending account writes, compact the account journal and release the transaction
+     * store's files (once per process)
+     */
+    public synchronized void shutdown() {
+        if (shutDown) return;
+        shutDown = true;
+
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+
+        AccountJournal.stopCompactor();
+        try {
+            AccountJournal.compact();
+        } catch (IOException e) {
+            System.err.println("Error compacting account journal: " + e.getMessage());
+        }
+
+        if (transactionDAO instanceof Closeable) {
+            try {
+                ((Closeable) transactionDAO).close();
+            } catch (IOException e) {
+                System.err.println("Error closing transaction store: " + e.getMessage());
+            }
+        }
+        DataFiles.syncUnsyncedFiles(); // Batched syncs still waiting (Durability.PER_BATCH)
+    }
+}
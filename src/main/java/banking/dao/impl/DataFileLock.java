@@ -0,0 +1,100 @@
+package banking.dao.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive lock on a data file, held across threads and across processes sharing the data directory.
+ * A side file (e.g. data/accounts.txt.lock) is locked with FileChannel.lock; the file itself is not
+ * locked, since rewrites replace it. File locks belong to the whole process, so threads queue on an
+ * in-process lock first. Reentrant, and meant to be held only around a commit's read-check-write:
+ *
+ *     lock.acquire();
+ *     try { ... } finally { lock.release(); }
+ */
+public final class DataFileLock {
+    private static final Map<String, DataFileLock> locks = new ConcurrentHashMap<>();
+
+    private final Path lockFile;
+    private final ReentrantLock threadLock = new ReentrantLock();
+    private FileChannel channel; // guarded by threadLock
+    private FileLock fileLock;
+
+    private DataFileLock(String dataFile) {
+        this.lockFile = Path.of(dataFile + ".lock");
+    }
+
+    public static DataFileLock forFile(String dataFile) {
+        return locks.computeIfAbsent(dataFile, DataFileLock::new);
+    }
+
+    /**
+     * Block until this thread holds the lock in this process and the process holds it on disk
+     */
+    public void acquire() throws IOException {
+        threadLock.lock();
+        if (threadLock.getHoldCount() > 1) return;
+
+        try {
+            if (channel == null || !channel.isOpen()) {
+                channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            fileLock = channel.lock();
+        } catch (IOException | RuntimeException e) {
+            // An interrupt while waiting closes the channel; drop it so the next acquire reopens it
+            if (channel != null && !channel.isOpen()) {
+                channel = null;
+            }
+            threadLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * The generation counter kept in the lock file (0 until first advanced). A holder that replaces
+     * the data file advances it, so other processes can tell the file was replaced even when the
+     * new file reuses the old one's inode. Only call while holding the lock
+     */
+    public long generation() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) return 0;
+        }
+        return buffer.flip().getLong();
+    }
+
+    /**
+     * Advance the generation counter (see generation). Only call while holding the lock
+     * @return the new generation
+     */
+    public long nextGeneration() throws IOException {
+        long next = generation() + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(next).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        return next;
+    }
+
+    public void release() throws IOException {
+        try {
+            if (threadLock.getHoldCount() == 1 && fileLock != null) {
+                FileLock held = fileLock;
+                fileLock = null;
+                if (held.isValid()) {
+                    held.release();
+                }
+            }
+        } finally {
+            threadLock.unlock();
+        }
+    }
+}
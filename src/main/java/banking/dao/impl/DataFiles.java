@@ -0,0 +1,200 @@
+package banking.dao.impl;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared file access for the text file DAOs.
+ * Resolves data file paths (the directory can be moved with -Dbanking.data.dir)
+ * and keeps a count of read opens per file so batch loading can be verified.
+ * Appends and whole-file rewrites go through append and replace, which sync to disk
+ * according to the configured Durability.
+ */
+public final class DataFiles {
+    public static final String DATA_DIR = System.getProperty("banking.data.dir", "data");
+    private static final long BATCH_SYNC_MILLIS = Long.getLong("banking.durability.batchMillis", 100);
+
+    private static final Map<String, AtomicInteger> readOpens = new ConcurrentHashMap<>();
+    private static final Set<String> unsynced = ConcurrentHashMap.newKeySet(); // written, awaiting the batch sync
+    private static ScheduledExecutorService batchSyncer;
+
+    private DataFiles() {
+    }
+
+    public static String path(String fileName) {
+        return DATA_DIR + File.separator + fileName;
+    }
+
+    public static void createDataDirectory() {
+        File dir = new File(DATA_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+    }
+
+    public static BufferedReader openReader(String file) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        readOpens.computeIfAbsent(file, f -> new AtomicInteger()).incrementAndGet();
+        return reader;
+    }
+
+    /**
+     * Open a file for reading from a byte offset, e.g. to read only what was appended since the last read
+     */
+    public static BufferedReader openReader(String file, long offset) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            in.getChannel().position(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        readOpens.computeIfAbsent(file, f -> new AtomicInteger()).incrementAndGet();
+        return new BufferedReader(new InputStreamReader(in));
+    }
+
+    public static BufferedWriter openWriter(String file, boolean append) throws IOException {
+        return new BufferedWriter(new FileWriter(file, append));
+    }
+
+    /**
+     * Append lines to a file as one commit, synced as the durability level asks (see syncCommit)
+     */
+    public static void append(String file, LineWriter lines) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file, true);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+            lines.writeTo(writer);
+            writer.flush();
+            syncCommit(file, () -> out.getFD().sync());
+        }
+    }
+
+    /**
+     * Sync a file a commit was just written to, as the durability level asks: at once through
+     * syncNow (the writer's own handle) at EVERY_COMMIT; at PER_BATCH by a background thread
+     * within banking.durability.batchMillis, one sync covering every commit made since; never
+     * at OS_BUFFERED
+     */
+    public static void syncCommit(String file, SyncAction syncNow) throws IOException {
+        Durability durability = Durability.current();
+        if (durability.syncsEachCommit()) {
+            syncNow.sync();
+        } else if (durability == Durability.PER_BATCH && unsynced.add(file)) {
+            startBatchSyncer();
+        }
+    }
+
+    /**
+     * Sync every file written since the last batch sync (see syncCommit), e.g. before exiting
+     */
+    public static void syncUnsyncedFiles() {
+        for (String file : unsynced) {
+            unsynced.remove(file); // Before syncing, so a commit made meanwhile is synced next time
+            try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (NoSuchFileException e) {
+                // Replaced or removed since; a rewrite is synced by replace itself
+            } catch (IOException e) {
+                System.err.println("Error syncing " + file + ": " + e.getMessage());
+                unsynced.add(file);
+            }
+        }
+    }
+
+    private static synchronized void startBatchSyncer() {
+        if (batchSyncer != null) return;
+
+        batchSyncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-syncer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        batchSyncer.scheduleWithFixedDelay(DataFiles::syncUnsyncedFiles,
+                BATCH_SYNC_MILLIS, BATCH_SYNC_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replace a file's contents without ever exposing a partial file: the lines go to a
+     * temporary file, which is synced (if the durability level asks for it) and renamed over
+     * the original, so after a crash the file holds either the old or the new contents
+     */
+    public static void replace(String file, LineWriter lines) throws IOException {
+        replace(file, Durability.current().syncsRewrites(), lines);
+    }
+
+    /**
+     * Replace a file's contents as above, syncing or not regardless of the durability level
+     */
+    public static void replace(String file, boolean sync, LineWriter lines) throws IOException {
+        Path target = Path.of(file).toAbsolutePath();
+        Path temp = Path.of(file + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile());
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+                lines.writeTo(writer);
+                writer.flush();
+                if (sync) {
+                    out.getFD().sync();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (sync) {
+            syncDirectory(target.getParent());
+        }
+    }
+
+    /**
+     * Persist a rename by syncing the directory that holds the file
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on some platforms (Windows); the rename is still atomic
+        }
+    }
+
+    /**
+     * Writes a file's lines for append and replace
+     */
+    @FunctionalInterface
+    public interface LineWriter {
+        void writeTo(BufferedWriter writer) throws IOException;
+    }
+
+    /**
+     * Syncs a commit through the writer's own handle, see syncCommit
+     */
+    @FunctionalInterface
+    public interface SyncAction {
+        void sync() throws IOException;
+    }
+
+    /**
+     * Number of times the file has been opened for reading since the last reset
+     */
+    public static int getReadOpenCount(String file) {
+        AtomicInteger count = readOpens.get(file);
+        return count != null ? count.get() : 0;
+    }
+
+    public static void resetReadOpenCounts() {
+        readOpens.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package banking.dao.impl;
+
+/**
+ * How hard the DAOs push writes to disk before returning, set with -Dbanking.durability.
+ * Every file rewrite goes through a temporary file and an atomic rename whatever the level,
+ * so a crash never leaves a half-written table; the level only decides when writes are
+ * synced (fsync), i.e. survive a power loss or OS crash rather than just a process crash.
+ */
+public enum Durability {
+    /** Sync every commit before it returns (the default) */
+    EVERY_COMMIT,
+    /**
+     * Sync commits in batches: a background thread syncs every file written since its last pass,
+     * every banking.durability.batchMillis (see DataFiles.syncCommit), so a power loss can lose
+     * at most that window of commits. File rewrites are synced before they return
+     */
+    PER_BATCH,
+    /** Never sync; the OS writes data back in its own time */
+    OS_BUFFERED;
+
+    private static volatile Durability current = fromProperty();
+
+    public static Durability current() {
+        return current;
+    }
+
+    /**
+     * Change the level for this process (benchmarks and tests)
+     */
+    public static void setCurrent(Durability durability) {
+        current = durability;
+    }
+
+    /**
+     * Whether each commit is synced before it returns
+     */
+    public boolean syncsEachCommit() {
+        return this == EVERY_COMMIT;
+    }
+
+    /**
+     * Whether a whole-file rewrite is synced before it returns
+     */
+    public boolean syncsRewrites() {
+        return this != OS_BUFFERED;
+    }
+
+    private static Durability fromProperty() {
+        String value = System.getProperty("banking.durability", EVERY_COMMIT.name());
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown banking.durability '" + value + "', using " + EVERY_COMMIT);
+            return EVERY_COMMIT;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package banking.dao.impl;
+
+import banking.dao.TransactionDAO;
+import banking.dao.TransactionQuery;
+import banking.model.Transaction;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Transaction ledger stored as fixed-width binary records in a memory-mapped file.
+ *
+ * File layout: a 16 byte header (magic, format version, record count) followed by
+ * 72 byte records - transaction id (24 bytes ASCII), account number (16 bytes ASCII),
+ * type code (1 byte, padded to 8), amount, balance after (longs, in thebe) and the timestamp
+ * as epoch seconds of the local date-time.
+ * Fields are read straight out of the mapping; an append is a single put of one record.
+ * The file is mapped as one buffer, so it holds at most MAX_RECORDS records (just under 2 GB).
+ */
+public class MappedTransactionDAO implements TransactionDAO, Closeable {
+    private static final int MAGIC = 0x42544C47; // "BTLG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+
+    private static final int ID_LENGTH = 24;
+    private static final int ACCOUNT_LENGTH = 16;
+    private static final int ID_OFFSET = 0;
+    private static final int ACCOUNT_OFFSET = ID_OFFSET + ID_LENGTH;
+    private static final int TYPE_OFFSET = ACCOUNT_OFFSET + ACCOUNT_LENGTH;
+    private static final int AMOUNT_OFFSET = TYPE_OFFSET + 8;
+    private static final int BALANCE_OFFSET = AMOUNT_OFFSET + 8;
+    private static final int TIMESTAMP_OFFSET = BALANCE_OFFSET + 8;
+    private static final int RECORD_SIZE = TIMESTAMP_OFFSET + 8;
+
+    private static final int INITIAL_CAPACITY = 1024; // records
+    private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE; // one mapping's worth
+
+    // Type codes are the index into this table; 0 is reserved
+    private static final String[] TYPES = {null, "DEPOSIT", "WITHDRAWAL", "INTEREST"};
+
+    private final Path ledgerPath;
+    private final Map<String, RecordList> recordsByAccount = new HashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel;
+    private MappedByteBuffer mapping;
+    private int count;
+
+    public MappedTransactionDAO() {
+        this(DataFiles.path("transactions.bin"));
+    }
+
+    public MappedTransactionDAO(String ledgerFile) {
+        DataFiles.createDataDirectory();
+        this.ledgerPath = Path.of(ledgerFile);
+    }
+
+    @Override
+    public synchronized void saveTransaction(Transaction transaction, String accountNumber) {
+        try {
+            ensureOpen();
+            checkTransactions(Map.of(accountNumber, List.of(transaction)));
+            append(transaction, accountNumber);
+            syncCommit();
+        } catch (IOException e) {
+            System.err.println("Error saving transaction: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The mapped ledger is written in place, so the record is saved before the future is returned
+     */
+    @Override
+    public CompletableFuture<Void> saveTransactionAsync(Transaction transaction, String accountNumber) {
+        saveTransaction(transaction, accountNumber);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized void saveTransactions(List<Transaction> transactions, String accountNumber) {
+        try {
+            ensureOpen();
+            checkTransactions(Map.of(accountNumber, transactions));
+            for (Transaction transaction : transactions) {
+                append(transaction, accountNumber);
+            }
+            syncCommit();
+        } catch (IOException e) {
+            System.err.println("Error saving transactions for account " + accountNumber + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void saveTransactions(Map<String, List<Transaction>> transactionsByAccount) {
+        try {
+            writeTransactions(transactionsByAccount);
+        } catch (IOException e) {
+            System.err.println("Error saving transactions for " + transactionsByAccount.size() + " accounts: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void writeTransactions(Map<String, List<Transaction>> transactionsByAccount) throws IOException {
+        ensureOpen();
+        checkTransactions(transactionsByAccount);
+        for (Map.Entry<String, List<Transaction>> entry : transactionsByAccount.entrySet()) {
+            for (Transaction transaction : entry.getValue()) {
+                append(transaction, entry.getKey());
+            }
+        }
+        syncCommit();
+    }
+
+    /**
+     * Every field must fit its fixed-width slot (ASCII IDs and account numbers, a known type),
+     * and the records must fit in the file, so a batch is written whole or not at all
+     */
+    @Override
+    public synchronized void checkTransactions(Map<String, List<Transaction>> transactionsByAccount) throws IOException {
+        long records = count;
+        for (Map.Entry<String, List<Transaction>> entry : transactionsByAccount.entrySet()) {
+            checkAscii("account number", entry.getKey(), ACCOUNT_LENGTH);
+            for (Transaction transaction : entry.getValue()) {
+                checkAscii("transaction ID", transaction.getTransactionId(), ID_LENGTH);
+                if (typeCode(transaction.getType()) == 0) {
+                    throw new IOException("Unknown transaction type for the binary ledger: " + transaction.getType());
+                }
+                records++;
+            }
+        }
+        if (records > MAX_RECORDS) {
+            throw new IOException("Binary ledger is full (" + MAX_RECORDS + " records): " + ledgerPath);
+        }
+    }
+
+    @Override
+    public synchronized List<Transaction> findTransactionsByAccount(String accountNumber) {
+        List<Transaction> transactions = new ArrayList<>();
+        try {
+            ensureOpen();
+        } catch (IOException e) {
+            System.err.println("Error reading transactions for account " + accountNumber + ": " + e.getMessage());
+            return transactions;
+        }
+
+        RecordList records = recordsByAccount.get(accountNumber);
+        if (records == null) return transactions;
+
+        for (int i = 0; i < records.size; i++) {
+            transactions.add(readTransaction(records.records[i]));
+        }
+        return transactions;
+    }
+
+    @Override
+    public synchronized long countTransactions(String accountNumber) {
+        try {
+            ensureOpen();
+        } catch (IOException e) {
+            System.err.println("Error counting transactions for account " + accountNumber + ": " + e.getMessage());
+            return 0;
+        }
+
+        RecordList records = recordsByAccount.get(accountNumber);
+        return records != null ? records.size : 0;
+    }
+
+    @Override
+    public synchronized Stream<Transaction> streamTransactions(TransactionQuery query) {
+        try {
+            ensureOpen();
+        } catch (IOException e) {
+            System.err.println("Error reading transactions: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        // Snapshot the record numbers present now; records are decoded as the stream is consumed
+        int[] records;
+        int size;
+        if (query.getAccountNumber() == null) {
+            records = null;
+            size = count;
+        } else {
+            RecordList accountRecords = recordsByAccount.get(query.getAccountNumber());
+            records = accountRecords != null ? accountRecords.records : new int[0];
+            size = accountRecords != null ? accountRecords.size : 0;
+        }
+        boolean newestFirst = query.isNewestFirst();
+
+        return query.apply(new Iterator<>() {
+            private int returned;
+
+            @Override
+            public boolean hasNext() {
+                return returned < size;
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int i = newestFirst ? size - 1 - returned : returned;
+                returned++;
+                synchronized (MappedTransactionDAO.this) {
+                    return readTransaction(records != null ? records[i] : i);
+                }
+            }
+        });
+    }
+
+    /**
+     * Force written records to disk and release the mapping
+     */
+    public synchronized void close() throws IOException {
+        if (channel == null) return;
+
+        mapping.force();
+        channel.close();
+        channel = null;
+        mapping = null;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel != null) return;
+
+        channel = FileChannel.open(ledgerPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean isNew = channel.size() == 0;
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(channel.size(), HEADER_SIZE + (long) INITIAL_CAPACITY * RECORD_SIZE));
+
+        if (isNew) {
+            mapping.putInt(0, MAGIC);
+            mapping.putInt(4, FORMAT_VERSION);
+            mapping.putLong(COUNT_OFFSET, 0);
+        } else if (mapping.getInt(0) != MAGIC || mapping.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            channel = null;
+            throw new IOException("Not a transaction ledger: " + ledgerPath);
+        }
+
+        count = (int) mapping.getLong(COUNT_OFFSET);
+        recordsByAccount.clear();
+        for (int record = 0; record < count; record++) {
+            indexRecord(readAccountNumber(record), record);
+        }
+    }
+
+    /**
+     * Append one record (checked by checkTransactions first)
+     */
+    private void append(Transaction transaction, String accountNumber) throws IOException {
+        int position = HEADER_SIZE + count * RECORD_SIZE;
+        if (position + RECORD_SIZE > mapping.capacity()) {
+            // Grow the file by remapping it at twice the size, up to one mapping's limit
+            long capacity = Math.min((mapping.capacity() - HEADER_SIZE) / RECORD_SIZE * 2L, MAX_RECORDS);
+            mapping.force();
+            mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity * RECORD_SIZE);
+        }
+
+        scratch.clear();
+        putAscii(scratch, transaction.getTransactionId(), ID_LENGTH);
+        putAscii(scratch, accountNumber, ACCOUNT_LENGTH);
+        scratch.putLong(typeCode(transaction.getType()));
+        scratch.putLong(transaction.getAmountThebe());
+        scratch.putLong(transaction.getBalanceAfterThebe());
+        scratch.putLong(transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        mapping.put(position, scratch, 0, RECORD_SIZE);
+
+        mapping.putLong(COUNT_OFFSET, count + 1);
+        indexRecord(accountNumber, count);
+        count++;
+    }
+
+    private void syncCommit() throws IOException {
+        DataFiles.syncCommit(ledgerPath.toString(), mapping::force);
+    }
+
+    private Transaction readTransaction(int record) {
+        int base = HEADER_SIZE + record * RECORD_SIZE;
+        String transactionId = readAscii(base + ID_OFFSET, ID_LENGTH);
+        String type = TYPES[(int) mapping.getLong(base + TYPE_OFFSET)];
+        long amount = mapping.getLong(base + AMOUNT_OFFSET);
+        long balanceAfter = mapping.getLong(base + BALANCE_OFFSET);
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(mapping.getLong(base + TIMESTAMP_OFFSET), 0, ZoneOffset.UTC);
+
+        return new Transaction(transactionId, type, amount, balanceAfter, timestamp);
+    }
+
+    private String readAccountNumber(int record) {
+        return readAscii(HEADER_SIZE + record * RECORD_SIZE + ACCOUNT_OFFSET, ACCOUNT_LENGTH);
+    }
+
+    private String readAscii(int position, int maxLength) {
+        int length = 0;
+        while (length < maxLength && mapping.get(position + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        mapping.get(position, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void indexRecord(String accountNumber, int record) {
+        recordsByAccount.computeIfAbsent(accountNumber, a -> new RecordList()).add(record);
+    }
+
+    private static void checkAscii(String field, String value, int width) throws IOException {
+        if (value.length() > width || !StandardCharsets.US_ASCII.newEncoder().canEncode(value)) {
+            throw new IOException("The binary ledger holds " + field + "s of up to " + width
+                    + " ASCII characters: " + value);
+        }
+    }
+
+    private static void putAscii(ByteBuffer buffer, String value, int width) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(bytes);
+        for (int i = bytes.length; i < width; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * The type's code, or 0 if the binary ledger has none for it
+     */
+    private static int typeCode(String type) {
+        for (int code = 1; code < TYPES.length; code++) {
+            if (TYPES[code].equals(type)) return code;
+        }
+        return 0;
+    }
+
+    /**
+     * Growable list of record numbers for one account
+     */
+    private static class RecordList {
+        private int[] records = new int[4];
+        private int size;
+
+        private void add(int record) {
+            if (size == records.length) {
+                records = Arrays.copyOf(records, size * 2);
+            }
+            records[size++] = record;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package banking.dao.impl;
+
+import banking.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reads the fields of one pipe-delimited data file line in order.
+ * Scans the characters directly instead of using a regex split, and parses
+ * numbers and timestamps in place, so only String fields allocate.
+ * One reader can be reset and reused for every line of a file.
+ */
+public final class RecordReader {
+    private static final char SEPARATOR = '|';
+
+    private CharSequence line;
+    private int position;
+    private int fieldEnd;
+
+    public RecordReader reset(CharSequence line) {
+        this.line = line;
+        this.position = 0;
+        this.fieldEnd = findFieldEnd(0);
+        return this;
+    }
+
+    /**
+     * Number of fields on the line, counting empty ones
+     */
+    public int fieldCount() {
+        int count = 1;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == SEPARATOR) count++;
+        }
+        return count;
+    }
+
+    public boolean hasNext() {
+        return position <= line.length();
+    }
+
+    public String nextString() {
+        String value = line.subSequence(position, fieldEnd).toString();
+        advance();
+        return value;
+    }
+
+    public void skip() {
+        advance();
+    }
+
+    public long nextLong() {
+        long value = parseLong(position, fieldEnd);
+        advance();
+        return value;
+    }
+
+    public int nextInt() {
+        return Math.toIntExact(nextLong());
+    }
+
+    /**
+     * Parse a decimal pula amount such as "-1234.50" straight into thebe, without going through double.
+     * Digits past the second decimal place are rounded half up
+     */
+    public long nextMoney() {
+        int start = position;
+        int end = fieldEnd;
+        advance();
+
+        boolean negative = start < end && line.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        long units = 0;
+        int fractionDigits = -1;
+        int digits = 0;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fractionDigits < 2) {
+                    units = units * 10 + (c - '0');
+                    if (fractionDigits >= 0) fractionDigits++;
+                } else if (fractionDigits == 2) {
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i != end || digits == 0 || digits > 18) {
+            return Money.ofPula(Double.parseDouble(line.subSequence(start, end).toString()));
+        }
+
+        for (int scale = Math.max(fractionDigits, 0); scale < 2; scale++) {
+            units *= 10;
+        }
+        if (roundUp) units++;
+        return negative ? -units : units;
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd HH:mm:ss" timestamp
+     */
+    public LocalDateTime nextTimestamp() {
+        int p = position;
+        if (fieldEnd - p != 19) {
+            throw new IllegalArgumentException("Bad timestamp: " + line.subSequence(p, fieldEnd));
+        }
+        LocalDateTime value = LocalDateTime.of(
+                (int) parseLong(p, p + 4), (int) parseLong(p + 5, p + 7), (int) parseLong(p + 8, p + 10),
+                (int) parseLong(p + 11, p + 13), (int) parseLong(p + 14, p + 16), (int) parseLong(p + 17, p + 19));
+        advance();
+        return value;
+    }
+
+    private void advance() {
+        position = fieldEnd + 1;
+        fieldEnd = findFieldEnd(position);
+    }
+
+    private int findFieldEnd(int from) {
+        int i = from;
+        while (i < line.length() && line.charAt(i) != SEPARATOR) {
+            i++;
+        }
+        return i;
+    }
+
+    private long parseLong(int start, int end) {
+        boolean negative = start < end && line.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Empty number field");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Bad number: " + line.subSequence(start, end));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+}
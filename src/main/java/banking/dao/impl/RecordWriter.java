@@ -0,0 +1,99 @@
+package banking.dao.impl;
+
+import banking.model.Money;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Builds pipe-delimited data file lines in a reusable StringBuilder.
+ * Produces the same text as the String.format patterns used by the DAOs
+ * ("%.2f" amounts, "yyyy-MM-dd HH:mm:ss" timestamps) without the formatter overhead.
+ * Amounts are taken in thebe, so there is no rounding to get wrong.
+ * Call begin() before each record.
+ */
+public final class RecordWriter {
+    private static final char SEPARATOR = '|';
+
+    private final StringBuilder buffer = new StringBuilder(128);
+    private boolean firstField;
+
+    public RecordWriter begin() {
+        buffer.setLength(0);
+        firstField = true;
+        return this;
+    }
+
+    public RecordWriter field(String value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    public RecordWriter field(long value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Append an amount held in thebe as pula with two decimal places
+     */
+    public RecordWriter money(long thebe) {
+        separate();
+        if (thebe < 0) {
+            buffer.append('-');
+            thebe = -thebe;
+        }
+        buffer.append(thebe / Money.THEBE_PER_PULA).append('.');
+        appendPadded(thebe % Money.THEBE_PER_PULA, 2);
+        return this;
+    }
+
+    /**
+     * Append a timestamp as "yyyy-MM-dd HH:mm:ss"
+     */
+    public RecordWriter timestamp(LocalDateTime value) {
+        separate();
+        appendPadded(value.getYear(), 4);
+        buffer.append('-');
+        appendPadded(value.getMonthValue(), 2);
+        buffer.append('-');
+        appendPadded(value.getDayOfMonth(), 2);
+        buffer.append(' ');
+        appendPadded(value.getHour(), 2);
+        buffer.append(':');
+        appendPadded(value.getMinute(), 2);
+        buffer.append(':');
+        appendPadded(value.getSecond(), 2);
+        return this;
+    }
+
+    /**
+     * Write the record followed by a line separator
+     */
+    public void writeLine(Writer writer) throws IOException {
+        writer.append(buffer);
+        writer.write(System.lineSeparator());
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+
+    private void separate() {
+        if (!firstField) {
+            buffer.append(SEPARATOR);
+        }
+        firstField = false;
+    }
+
+    private void appendPadded(long value, int width) {
+        for (long limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) buffer.append('0');
+        }
+        buffer.append(value);
+    }
+}
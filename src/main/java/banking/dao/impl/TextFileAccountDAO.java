@@ -1,53 +1,51 @@
 package banking.dao.impl;
 
 import banking.dao.AccountDAO;
+import banking.dao.ConcurrentUpdateException;
 import banking.dao.CustomerDAO;
 import banking.dao.TransactionDAO; // ADD THIS IMPORT
 import banking.model.*;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TextFileAccountDAO implements AccountDAO {
-    private static final String ACCOUNTS_FILE = "data/accounts.txt";
-    private static final String DATA_DIR = "data";
+    private static final AtomicBoolean recoveryDone = new AtomicBoolean();
+
     private CustomerDAO customerDAO;
     private TransactionDAO transactionDAO; // ADD THIS FIELD
 
     public TextFileAccountDAO() {
-        createDataDirectory();
+        DataFiles.createDataDirectory();
         this.customerDAO = new TextFileCustomerDAO();
         this.transactionDAO = new TextFileTransactionDAO(); // INITIALIZE IT
+        AccountJournal.startCompactor(this::restoreJournalledTransactions);
+        recoverTransactions();
     }
 
-    private void createDataDirectory() {
-        File dir = new File(DATA_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
+    public TextFileAccountDAO(CustomerDAO customerDAO, TransactionDAO transactionDAO) {
+        DataFiles.createDataDirectory();
+        this.customerDAO = customerDAO;
+        this.transactionDAO = transactionDAO;
+        AccountJournal.startCompactor(this::restoreJournalledTransactions);
+        recoverTransactions();
     }
 
     @Override
     public void saveAccount(Account account) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ACCOUNTS_FILE, true))) {
-            String employerName = "";
-            String employerAddress = "";
-
-            if (account instanceof CheckingAccount) {
-                employerName = ((CheckingAccount) account).getEmployerName();
-                employerAddress = ((CheckingAccount) account).getEmployerAddress();
-            }
-
-            String line = String.format("%s|%s|%s|%.2f|%s|%s|%s",
-                    account.getAccountNumber(), account.getCustomer().getCustomerId(),
-                    account.getClass().getSimpleName(), account.getBalance(),
-                    account.getBranch(), employerName, employerAddress);
-
-            writer.write(line);
-            writer.newLine();
+        try {
+            AccountJournal.appendBase(formatAccount(account, account.getVersion()));
         } catch (IOException e) {
             System.err.println("Error saving account: " + e.getMessage());
+            return;
         }
+        saveNewTransactions(account);
     }
 
     @Override
@@ -75,92 +73,291 @@ public class TextFileAccountDAO implements AccountDAO {
     @Override
     public List<Account> findAllAccounts() {
         List<Account> accounts = new ArrayList<>();
-        File file = new File(ACCOUNTS_FILE);
-        if (!file.exists()) return accounts;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-
-                String[] parts = line.split("\\|");
-                if (parts.length >= 5) {
-                    String accountNumber = parts[0];
-                    String customerId = parts[1];
-                    String accountType = parts[2];
-                    double balance = Double.parseDouble(parts[3]);
-                    String branch = parts[4];
-
-                    Customer customer = customerDAO.findCustomerById(customerId);
-                    if (customer == null) continue;
-
-                    Account account;
-                    switch (accountType) {
-                        case "SavingsAccount":
-                            account = new SavingsAccount(accountNumber, balance, branch, customer);
-                            break;
-                        case "InvestmentAccount":
-                            account = new InvestmentAccount(accountNumber, balance, branch, customer);
-                            break;
-                        case "CheckingAccount":
-                            String employerName = parts.length > 5 ? parts[5] : "";
-                            String employerAddress = parts.length > 6 ? parts[6] : "";
-                            account = new CheckingAccount(accountNumber, balance, branch, customer, employerName, employerAddress);
-                            break;
-                        default:
-                            continue;
-                    }
-
-                    // Load transactions for this account
-                    loadTransactionsForAccount(account);
-                    accounts.add(account);
-                }
-            }
+        Map<String, String> records;
+        try {
+            // Base file overlaid with the latest journal record per account
+            records = AccountJournal.readCurrentRecords();
         } catch (IOException e) {
             System.err.println("Error reading accounts: " + e.getMessage());
+            return accounts;
+        }
+        if (records.isEmpty()) return accounts;
+
+        // Read customers once and join them to the accounts in memory
+        Map<String, Customer> customersById = new HashMap<>();
+        for (Customer customer : customerDAO.findAllCustomers()) {
+            customersById.put(customer.getCustomerId(), customer);
+        }
+
+        RecordReader reader = new RecordReader();
+        for (String line : records.values()) {
+            reader.reset(line);
+            int fieldCount = reader.fieldCount();
+            if (fieldCount >= 5) {
+                String accountNumber = reader.nextString();
+                String customerId = reader.nextString();
+                String accountType = reader.nextString();
+                long balance = reader.nextMoney();
+                String branch = reader.nextString();
+
+                Customer customer = customersById.get(customerId);
+                if (customer == null) continue;
+
+                // Optional trailing columns: employer details (checking accounts only), last interest period, version
+                String employerName = fieldCount > 5 ? reader.nextString() : "";
+                String employerAddress = fieldCount > 6 ? reader.nextString() : "";
+                String lastInterestPeriod = fieldCount > 7 ? reader.nextString() : "";
+                long version = fieldCount > 8 ? reader.nextLong() : 0;
+
+                Account account;
+                switch (accountType) {
+                    case "SavingsAccount":
+                        account = SavingsAccount.withBalanceThebe(accountNumber, balance, branch, customer);
+                        break;
+                    case "InvestmentAccount":
+                        account = InvestmentAccount.withBalanceThebe(accountNumber, balance, branch, customer);
+                        break;
+                    case "CheckingAccount":
+                        account = CheckingAccount.withBalanceThebe(accountNumber, balance, branch, customer, employerName, employerAddress);
+                        break;
+                    default:
+                        continue;
+                }
+
+                account.setLastInterestPeriod(lastInterestPeriod);
+                account.setVersion(version);
+
+                // History is only fetched if something asks for it
+                account.setTransactionLoader(() -> transactionDAO.findTransactionsByAccount(accountNumber));
+                accounts.add(account);
+            }
+        }
+
+        // Customers are shared instances, so keep each one's account list in step with this load
+        Map<String, List<Account>> accountsByCustomer = new HashMap<>();
+        for (Account account : accounts) {
+            accountsByCustomer.computeIfAbsent(account.getCustomer().getCustomerId(), id -> new ArrayList<>()).add(account);
+        }
+        for (Customer customer : customersById.values()) {
+            customer.setAccounts(accountsByCustomer.getOrDefault(customer.getCustomerId(), new ArrayList<>()));
         }
         return accounts;
     }
 
     @Override
     public void updateAccount(Account account) {
-        List<Account> allAccounts = findAllAccounts();
-        allAccounts.removeIf(a -> a.getAccountNumber().equals(account.getAccountNumber()));
-        allAccounts.add(account);
+        updateAccounts(List.of(account));
+    }
+
+    /**
+     * Commit the accounts and all their new transactions as one journal frame, synced to disk,
+     * then append the transactions to the ledger in one write. A failed ledger write does not undo
+     * the commit: the journal keeps the transactions until they are re-applied (see AccountJournal).
+     * Compare-and-set: each account must still be at the version it was loaded (or last saved) at,
+     * otherwise nothing is written and ConcurrentUpdateException is thrown. Saved records get the next version.
+     * The accounts' locks are held (taken in stripe order) from reading their state until the new
+     * version is recorded, so a concurrent posting or interest run cannot slip in between.
+     * If the frame cannot be written, UncheckedIOException is thrown and the accounts are left
+     * unsaved; the caller drops their changes with refreshAccounts
+     */
+    @Override
+    public void updateAccounts(Collection<Account> accounts) {
+        List<String> accountNumbers = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            accountNumbers.add(account.getAccountNumber());
+        }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ACCOUNTS_FILE))) {
-            for (Account acc : allAccounts) {
-                String employerName = "";
-                String employerAddress = "";
+        AccountLocks.lockAll(accountNumbers);
+        try {
+            Map<String, Long> expectedVersions = new HashMap<>();
+            List<String> records = new ArrayList<>(accounts.size());
+            Map<String, List<Transaction>> unsavedByAccount = new HashMap<>();
+            for (Account account : accounts) {
+                long version = account.getVersion();
+                expectedVersions.put(account.getAccountNumber(), version);
+                records.add(formatAccount(account, version + 1));
+                List<Transaction> unsaved = account.getUnsavedTransactions();
+                if (unsaved.isEmpty()) continue;
 
-                if (acc instanceof CheckingAccount) {
-                    employerName = ((CheckingAccount) acc).getEmployerName();
-                    employerAddress = ((CheckingAccount) acc).getEmployerAddress();
-                }
+                unsavedByAccount.put(account.getAccountNumber(), unsaved);
+            }
 
-                String line = String.format("%s|%s|%s|%.2f|%s|%s|%s",
-                        acc.getAccountNumber(), acc.getCustomer().getCustomerId(),
-                        acc.getClass().getSimpleName(), acc.getBalance(),
-                        acc.getBranch(), employerName, employerAddress);
+            try {
+                transactionDAO.checkTransactions(unsavedByAccount);
+                AccountJournal.commit(records, unsavedByAccount, transactionDAO,
+                        current -> checkVersions(expectedVersions, current));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error updating " + accounts.size() + " accounts: " + e.getMessage(), e);
+            }
 
-                writer.write(line);
-                writer.newLine();
+            for (Account account : accounts) {
+                account.setVersion(expectedVersions.get(account.getAccountNumber()) + 1);
+                List<Transaction> saved = unsavedByAccount.get(account.getAccountNumber());
+                if (saved != null) {
+                    account.markTransactionsSaved(saved);
+                }
             }
+        } finally {
+            AccountLocks.unlockAll(accountNumbers);
+        }
+    }
+
+    /**
+     * Reload balance, interest period and version from the saved records, dropping unsaved changes
+     */
+    @Override
+    public void refreshAccounts(Collection<Account> accounts) {
+        List<String> accountNumbers = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            accountNumbers.add(account.getAccountNumber());
+        }
+
+        Map<String, String> current;
+        try {
+            current = AccountJournal.readCommittedRecords(accountNumbers);
         } catch (IOException e) {
-            System.err.println("Error updating account: " + e.getMessage());
+            System.err.println("Error refreshing accounts: " + e.getMessage());
+            return;
+        }
+
+        RecordReader reader = new RecordReader();
+        for (Account account : accounts) {
+            String record = current.get(account.getAccountNumber());
+            if (record == null) continue;
+
+            reader.reset(record);
+            int fieldCount = reader.fieldCount();
+            reader.skip(); // account number
+            reader.skip(); // customer ID
+            reader.skip(); // account type
+            long balance = reader.nextMoney();
+            reader.skip(); // branch
+            reader.skip(); // employer name
+            reader.skip(); // employer address
+            String lastInterestPeriod = fieldCount > 7 ? reader.nextString() : "";
+            long version = fieldCount > 8 ? reader.nextLong() : 0;
+
+            String accountNumber = account.getAccountNumber();
+            account.restore(balance, lastInterestPeriod, version,
+                    () -> transactionDAO.findTransactionsByAccount(accountNumber));
         }
     }
 
-    private void loadTransactionsForAccount(Account account) {
-        List<Transaction> transactions = transactionDAO.findTransactionsByAccount(account.getAccountNumber());
+    /**
+     * Reject the commit if any account was saved by another instance since this copy was loaded
+     * @param expectedVersions version each account's new record is based on, by account number
+     */
+    private void checkVersions(Map<String, Long> expectedVersions, Map<String, String> current) {
+        List<String> stale = new ArrayList<>();
+        RecordReader reader = new RecordReader();
+        for (Map.Entry<String, Long> entry : expectedVersions.entrySet()) {
+            String record = current.get(entry.getKey());
+            if (record == null) continue; // Not saved yet
+
+            if (readVersion(reader.reset(record)) != entry.getValue()) {
+                stale.add(entry.getKey());
+            }
+        }
+        if (!stale.isEmpty()) {
+            throw new ConcurrentUpdateException(stale);
+        }
+    }
+
+    /**
+     * Append only the transactions created since the account was loaded or last saved
+     */
+    private void saveNewTransactions(Account account) {
+        List<Transaction> unsaved = account.getUnsavedTransactions();
+        if (unsaved.isEmpty()) return;
+
+        transactionDAO.saveTransactions(unsaved, account.getAccountNumber());
+        account.markTransactionsSaved(unsaved);
+    }
+
+    /**
+     * Re-apply journalled transactions missing from the ledger, i.e. those of a commit
+     * interrupted between the journal sync and the ledger write. Runs once per process
+     */
+    private void recoverTransactions() {
+        if (!recoveryDone.compareAndSet(false, true)) return;
 
-        // Set transactions using reflection
         try {
-            java.lang.reflect.Method setTransactions = Account.class.getDeclaredMethod("setTransactions", List.class);
-            setTransactions.setAccessible(true);
-            setTransactions.invoke(account, transactions);
-        } catch (Exception e) {
-            System.err.println("Could not load transactions for account: " + e.getMessage());
+            restoreJournalledTransactions();
+        } catch (IOException e) {
+            System.err.println("Error recovering transactions from the account journal: " + e.getMessage());
         }
     }
+
+    /**
+     * Write every transaction of the journal's committed frames that the ledger lacks.
+     * Also run before compacting a journal whose ledger write failed (see AccountJournal.compact)
+     */
+    private void restoreJournalledTransactions() throws IOException {
+        List<String> journalled = AccountJournal.readCommittedTransactions();
+        if (journalled.isEmpty()) return;
+
+        Map<String, List<Transaction>> byAccount = new HashMap<>();
+        RecordReader reader = new RecordReader();
+        for (String line : journalled) {
+            Transaction transaction = TextFileTransactionDAO.parseTransaction(reader.reset(line));
+            if (transaction != null) {
+                int accountStart = line.indexOf('|') + 1;
+                String accountNumber = line.substring(accountStart, line.indexOf('|', accountStart));
+                byAccount.computeIfAbsent(accountNumber, a -> new ArrayList<>()).add(transaction);
+            }
+        }
+
+        // Transaction IDs are unique, so anything already in the ledger is skipped
+        Map<String, List<Transaction>> missing = new HashMap<>();
+        int missingCount = 0;
+        for (Map.Entry<String, List<Transaction>> entry : byAccount.entrySet()) {
+            Set<String> ledgerIds = new HashSet<>();
+            for (Transaction transaction : transactionDAO.findTransactionsByAccount(entry.getKey())) {
+                ledgerIds.add(transaction.getTransactionId());
+            }
+            for (Transaction transaction : entry.getValue()) {
+                if (!ledgerIds.contains(transaction.getTransactionId())) {
+                    missing.computeIfAbsent(entry.getKey(), a -> new ArrayList<>()).add(transaction);
+                    missingCount++;
+                }
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        transactionDAO.writeTransactions(missing);
+        System.out.println("Recovered " + missingCount + " transactions from the account journal");
+    }
+
+    /**
+     * The version column of an account record (records written before versioning are version 0)
+     */
+    private static long readVersion(RecordReader reader) {
+        if (reader.fieldCount() <= 8) return 0;
+        for (int i = 0; i < 8; i++) {
+            reader.skip();
+        }
+        return reader.nextLong();
+    }
+
+    private String formatAccount(Account account, long version) {
+        String employerName = "";
+        String employerAddress = "";
+
+        if (account instanceof CheckingAccount) {
+            employerName = ((CheckingAccount) account).getEmployerName();
+            employerAddress = ((CheckingAccount) account).getEmployerAddress();
+        }
+
+        return new RecordWriter().begin()
+                .field(account.getAccountNumber())
+                .field(account.getCustomer().getCustomerId())
+                .field(account.getClass().getSimpleName())
+                .money(account.getBalanceThebe())
+                .field(account.getBranch())
+                .field(employerName)
+                .field(employerAddress)
+                .field(account.getLastInterestPeriod())
+                .field(version)
+                .toString();
+    }
 }
\ No newline at end of file
@@ -9,44 +9,35 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class TextFileCustomerDAO implements CustomerDAO {
-    private static final String CUSTOMERS_FILE = "data/customers.txt";
-    private static final String DATA_DIR = "data";
+    private static final String CUSTOMERS_FILE = DataFiles.path("customers.txt");
+    // Guards read-modify-write of the file against other threads and processes
+    private static final DataFileLock FILE_LOCK = DataFileLock.forFile(CUSTOMERS_FILE);
 
     public TextFileCustomerDAO() {
-        createDataDirectory();
-    }
-
-    private void createDataDirectory() {
-        File dir = new File(DATA_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
+        DataFiles.createDataDirectory();
     }
 
     @Override
-    public void saveCustomer(Customer customer) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CUSTOMERS_FILE, true))) {
-            String line;
-            if (customer instanceof IndividualCustomer) {
-                IndividualCustomer ind = (IndividualCustomer) customer;
-                line = String.format("%s|INDIVIDUAL|%s|%s|%s|%s|%s|%s",
-                        ind.getCustomerId(), ind.getFirstName(), ind.getSurname(),
-                        ind.getNationalId(), ind.getAddress(), ind.getPhoneNumber(), ind.getEmail());
-            } else {
-                CompanyCustomer comp = (CompanyCustomer) customer;
-                line = String.format("%s|COMPANY|%s|%s|%s|%s|%s",
-                        comp.getCustomerId(), comp.getName(), comp.getCompanyNumber(),
-                        comp.getAddress(), comp.getPhoneNumber(), comp.getEmail());
+    public synchronized void saveCustomer(Customer customer) {
+        try {
+            FILE_LOCK.acquire();
+            try {
+                DataFiles.append(CUSTOMERS_FILE, writer -> formatCustomer(new RecordWriter(), customer).writeLine(writer));
+                CustomerIdentityMap.put(customer);
+            } finally {
+                FILE_LOCK.release();
             }
-            writer.write(line);
-            writer.newLine();
         } catch (IOException e) {
             System.err.println("Error saving customer: " + e.getMessage());
         }
     }
 
     @Override
-    public Customer findCustomerById(String customerId) {
+    public synchronized Customer findCustomerById(String customerId) {
+        // Already materialised customers are served without re-reading the file
+        Customer loaded = CustomerIdentityMap.get(customerId);
+        if (loaded != null) return loaded;
+
         List<Customer> customers = findAllCustomers();
         return customers.stream()
                 .filter(c -> c.getCustomerId().equals(customerId))
@@ -55,30 +46,33 @@ public class TextFileCustomerDAO implements CustomerDAO {
     }
 
     @Override
-    public List<Customer> findAllCustomers() {
+    public synchronized List<Customer> findAllCustomers() {
         List<Customer> customers = new ArrayList<>();
         File file = new File(CUSTOMERS_FILE);
         if (!file.exists()) return customers;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(CUSTOMERS_FILE))) {
+        RecordReader reader = new RecordReader();
+        try (BufferedReader fileReader = DataFiles.openReader(CUSTOMERS_FILE)) {
             String line;
-            while ((line = reader.readLine()) != null) {
+            while ((line = fileReader.readLine()) != null) {
                 if (line.trim().isEmpty()) continue;
 
-                String[] parts = line.split("\\|");
-                if (parts.length >= 7) {
-                    if ("INDIVIDUAL".equals(parts[1])) {
+                reader.reset(line);
+                if (reader.fieldCount() >= 7) {
+                    String customerId = reader.nextString();
+                    String customerType = reader.nextString();
+                    if ("INDIVIDUAL".equals(customerType)) {
                         IndividualCustomer customer = new IndividualCustomer(
-                                parts[0], parts[2], parts[3], parts[4],
-                                parts[5], parts[6], parts[7]
+                                customerId, reader.nextString(), reader.nextString(), reader.nextString(),
+                                reader.nextString(), reader.nextString(), reader.nextString()
                         );
-                        customers.add(customer);
-                    } else if ("COMPANY".equals(parts[1])) {
+                        customers.add(CustomerIdentityMap.intern(customer));
+                    } else if ("COMPANY".equals(customerType)) {
                         CompanyCustomer customer = new CompanyCustomer(
-                                parts[0], parts[2], parts[3],
-                                parts[4], parts[5], parts[6]
+                                customerId, reader.nextString(), reader.nextString(),
+                                reader.nextString(), reader.nextString(), reader.nextString()
                         );
-                        customers.add(customer);
+                        customers.add(CustomerIdentityMap.intern(customer));
                     }
                 }
             }
@@ -89,34 +83,51 @@ public class TextFileCustomerDAO implements CustomerDAO {
     }
 
     @Override
-    public void updateCustomer(Customer customer) {
-        // For simplicity, we'll rewrite the entire file
-        List<Customer> allCustomers = findAllCustomers();
-        // Remove the old version of this customer
-        allCustomers.removeIf(c -> c.getCustomerId().equals(customer.getCustomerId()));
-        // Add the updated customer
-        allCustomers.add(customer);
-
-        // Rewrite the file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CUSTOMERS_FILE))) {
-            for (Customer cust : allCustomers) {
-                String line;
-                if (cust instanceof IndividualCustomer) {
-                    IndividualCustomer ind = (IndividualCustomer) cust;
-                    line = String.format("%s|INDIVIDUAL|%s|%s|%s|%s|%s|%s",
-                            ind.getCustomerId(), ind.getFirstName(), ind.getSurname(),
-                            ind.getNationalId(), ind.getAddress(), ind.getPhoneNumber(), ind.getEmail());
-                } else {
-                    CompanyCustomer comp = (CompanyCustomer) cust;
-                    line = String.format("%s|COMPANY|%s|%s|%s|%s|%s",
-                            comp.getCustomerId(), comp.getName(), comp.getCompanyNumber(),
-                            comp.getAddress(), comp.getPhoneNumber(), comp.getEmail());
+    public synchronized void updateCustomer(Customer customer) {
+        String prefix = customer.getCustomerId() + "|";
+        try {
+            FILE_LOCK.acquire();
+            try {
+                // Re-read the file under the lock and replace only this customer's line, so changes
+                // other instances made to other customers are kept
+                List<String> lines = new ArrayList<>();
+                if (new File(CUSTOMERS_FILE).exists()) {
+                    try (BufferedReader fileReader = DataFiles.openReader(CUSTOMERS_FILE)) {
+                        String line;
+                        while ((line = fileReader.readLine()) != null) {
+                            if (!line.trim().isEmpty() && !line.startsWith(prefix)) {
+                                lines.add(line);
+                            }
+                        }
+                    }
                 }
-                writer.write(line);
-                writer.newLine();
+                lines.add(formatCustomer(new RecordWriter(), customer).toString());
+
+                // Rewrite the file (via a temporary file, so a crash leaves the old or the new table)
+                DataFiles.replace(CUSTOMERS_FILE, writer -> {
+                    for (String line : lines) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                });
+                CustomerIdentityMap.put(customer);
+            } finally {
+                FILE_LOCK.release();
             }
         } catch (IOException e) {
             System.err.println("Error updating customer: " + e.getMessage());
         }
     }
+
+    private RecordWriter formatCustomer(RecordWriter record, Customer customer) {
+        record.begin().field(customer.getCustomerId());
+        if (customer instanceof IndividualCustomer) {
+            IndividualCustomer ind = (IndividualCustomer) customer;
+            record.field("INDIVIDUAL").field(ind.getFirstName()).field(ind.getSurname()).field(ind.getNationalId());
+        } else {
+            CompanyCustomer comp = (CompanyCustomer) customer;
+            record.field("COMPANY").field(comp.getName()).field(comp.getCompanyNumber());
+        }
+        return record.field(customer.getAddress()).field(customer.getPhoneNumber()).field(customer.getEmail());
+    }
 }
\ No newline at end of file
@@ -1,81 +1,113 @@
 package banking.dao.impl;
 
 import banking.dao.TransactionDAO;
+import banking.dao.TransactionQuery;
 import banking.model.Transaction;
 import java.io.*;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
-public class TextFileTransactionDAO implements TransactionDAO {
-    private static final String TRANSACTIONS_FILE = "data/transactions.txt";
-    private static final String DATA_DIR = "data";
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+public class TextFileTransactionDAO implements TransactionDAO, Closeable {
+    private static final String TRANSACTIONS_FILE = DataFiles.path("transactions.txt");
+    private static final String INDEX_FILE = DataFiles.path("transactions.idx");
+
+    // Shared so every DAO instance appends through, and reads from, the same offset index
+    private static final TransactionLedger ledger = new TransactionLedger(TRANSACTIONS_FILE, INDEX_FILE);
 
     public TextFileTransactionDAO() {
-        createDataDirectory();
+        DataFiles.createDataDirectory();
     }
 
-    private void createDataDirectory() {
-        File dir = new File(DATA_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
+    /**
+     * Save one transaction through the ledger's group-commit writer, waiting until it is written
+     */
+    @Override
+    public void saveTransaction(Transaction transaction, String accountNumber) {
+        try {
+            saveTransactionAsync(transaction, accountNumber).join();
+        } catch (CompletionException e) {
+            System.err.println("Error saving transaction: " + e.getCause().getMessage());
         }
     }
 
+    /**
+     * Queue one transaction for the ledger's group-commit writer; the future completes once it is durable
+     */
     @Override
-    public void saveTransaction(Transaction transaction, String accountNumber) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TRANSACTIONS_FILE, true))) {
-            String line = String.format("%s|%s|%s|%.2f|%.2f|%s",
-                    transaction.getTransactionId(), accountNumber,
-                    transaction.getType(), transaction.getAmount(),
-                    transaction.getBalanceAfter(), transaction.getTimestamp().format(formatter));
-
-            writer.write(line);
-            writer.newLine();
-            System.out.println("Transaction saved: " + transaction.getTransactionId() + " for account: " + accountNumber);
+    public CompletableFuture<Void> saveTransactionAsync(Transaction transaction, String accountNumber) {
+        return ledger.appendAsync(accountNumber, formatTransaction(new RecordWriter(), transaction, accountNumber));
+    }
+
+    @Override
+    public void saveTransactions(List<Transaction> transactions, String accountNumber) {
+        if (transactions.isEmpty()) return;
+
+        List<String> lines = new ArrayList<>();
+        RecordWriter record = new RecordWriter();
+        for (Transaction transaction : transactions) {
+            lines.add(formatTransaction(record, transaction, accountNumber));
+        }
+
+        // One append for the whole batch
+        try {
+            ledger.append(accountNumber, lines);
         } catch (IOException e) {
-            System.err.println("Error saving transaction: " + e.getMessage());
+            System.err.println("Error saving transactions for account " + accountNumber + ": " + e.getMessage());
         }
     }
 
+    @Override
+    public void saveTransactions(Map<String, List<Transaction>> transactionsByAccount) {
+        try {
+            writeTransactions(transactionsByAccount);
+        } catch (IOException e) {
+            System.err.println("Error saving transactions for " + transactionsByAccount.size() + " accounts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append every account's transactions to the ledger in one write
+     */
+    @Override
+    public void writeTransactions(Map<String, List<Transaction>> transactionsByAccount) throws IOException {
+        Map<String, List<String>> linesByAccount = new HashMap<>();
+        RecordWriter record = new RecordWriter();
+        for (Map.Entry<String, List<Transaction>> entry : transactionsByAccount.entrySet()) {
+            List<String> lines = new ArrayList<>(entry.getValue().size());
+            for (Transaction transaction : entry.getValue()) {
+                lines.add(formatTransaction(record, transaction, entry.getKey()));
+            }
+            linesByAccount.put(entry.getKey(), lines);
+        }
+        ledger.append(linesByAccount);
+    }
+
+    /**
+     * Text records have no fixed-width fields, so there is nothing to refuse
+     */
+    @Override
+    public void checkTransactions(Map<String, List<Transaction>> transactionsByAccount) {
+    }
+
     @Override
     public List<Transaction> findTransactionsByAccount(String accountNumber) {
         List<Transaction> accountTransactions = new ArrayList<>();
-        File file = new File(TRANSACTIONS_FILE);
-        if (!file.exists()) return accountTransactions;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
 
-                String[] parts = line.split("\\|");
-                if (parts.length >= 6) {
-                    String fileAccountNumber = parts[1]; // Account number is at index 1
-
-                    // Only include transactions for this specific account
-                    if (fileAccountNumber.equals(accountNumber)) {
-                        String transactionId = parts[0];
-                        String type = parts[2];
-                        double amount = Double.parseDouble(parts[3]);
-                        double balanceAfter = Double.parseDouble(parts[4]);
-                        LocalDateTime timestamp = LocalDateTime.parse(parts[5], formatter);
-
-                        Transaction transaction = new Transaction(transactionId, type, amount, balanceAfter);
-
-                        // Set the timestamp using reflection since it's final
-                        try {
-                            java.lang.reflect.Field timestampField = Transaction.class.getDeclaredField("timestamp");
-                            timestampField.setAccessible(true);
-                            timestampField.set(transaction, timestamp);
-                        } catch (Exception e) {
-                            System.err.println("Could not set timestamp: " + e.getMessage());
-                        }
-
-                        accountTransactions.add(transaction);
-                    }
+        // Read only this account's records via the offset index
+        try {
+            RecordReader reader = new RecordReader();
+            for (String line : ledger.readRecords(accountNumber)) {
+                Transaction transaction = parseTransaction(reader.reset(line));
+                if (transaction != null) {
+                    accountTransactions.add(transaction);
                 }
             }
         } catch (IOException e) {
@@ -85,41 +117,93 @@ public class TextFileTransactionDAO implements TransactionDAO {
     }
 
     @Override
-    public List<Transaction> findAllTransactions() {
-        List<Transaction> transactions = new ArrayList<>();
+    public long countTransactions(String accountNumber) {
+        try {
+            return ledger.count(accountNumber);
+        } catch (IOException e) {
+            System.err.println("Error counting transactions for account " + accountNumber + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public Stream<Transaction> streamTransactions(TransactionQuery query) {
+        Iterator<String> records;
+        try {
+            records = ledger.iterateRecords(query.getAccountNumber(), query.isNewestFirst());
+        } catch (IOException e) {
+            System.err.println("Error reading transactions: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        // Records are only read and parsed as the stream is consumed
+        RecordReader reader = new RecordReader();
+        return query.apply(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public Transaction next() {
+                return parseTransaction(reader.reset(records.next()));
+            }
+        });
+    }
+
+    /**
+     * Stream every transaction in ledger order to the action, with its account number
+     */
+    public void forEachTransaction(BiConsumer<String, Transaction> action) {
         File file = new File(TRANSACTIONS_FILE);
-        if (!file.exists()) return transactions;
+        if (!file.exists()) return;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
+        RecordReader reader = new RecordReader();
+        try (BufferedReader fileReader = DataFiles.openReader(TRANSACTIONS_FILE)) {
             String line;
-            while ((line = reader.readLine()) != null) {
+            while ((line = fileReader.readLine()) != null) {
                 if (line.trim().isEmpty()) continue;
 
-                String[] parts = line.split("\\|");
-                if (parts.length >= 6) {
-                    String transactionId = parts[0];
-                    String type = parts[2];
-                    double amount = Double.parseDouble(parts[3]);
-                    double balanceAfter = Double.parseDouble(parts[4]);
-                    LocalDateTime timestamp = LocalDateTime.parse(parts[5], formatter);
-
-                    Transaction transaction = new Transaction(transactionId, type, amount, balanceAfter);
-
-                    // Set the timestamp using reflection since it's final
-                    try {
-                        java.lang.reflect.Field timestampField = Transaction.class.getDeclaredField("timestamp");
-                        timestampField.setAccessible(true);
-                        timestampField.set(transaction, timestamp);
-                    } catch (Exception e) {
-                        System.err.println("Could not set timestamp: " + e.getMessage());
-                    }
-
-                    transactions.add(transaction);
+                Transaction transaction = parseTransaction(reader.reset(line));
+                if (transaction != null) {
+                    int accountStart = line.indexOf('|') + 1;
+                    action.accept(line.substring(accountStart, line.indexOf('|', accountStart)), transaction);
                 }
             }
         } catch (IOException e) {
             System.err.println("Error reading transactions: " + e.getMessage());
         }
-        return transactions;
+    }
+
+    static String formatTransaction(RecordWriter record, Transaction transaction, String accountNumber) {
+        return record.begin()
+                .field(transaction.getTransactionId())
+                .field(accountNumber)
+                .field(transaction.getType())
+                .money(transaction.getAmountThebe())
+                .money(transaction.getBalanceAfterThebe())
+                .timestamp(transaction.getTimestamp())
+                .toString();
+    }
+
+    /**
+     * Release the ledger's read channel; it is reopened if the DAO is used again
+     */
+    @Override
+    public void close() throws IOException {
+        ledger.close();
+    }
+
+    static Transaction parseTransaction(RecordReader reader) {
+        if (reader.fieldCount() < 6) return null;
+
+        String transactionId = reader.nextString();
+        reader.skip(); // account number
+        String type = reader.nextString();
+        long amount = reader.nextMoney();
+        long balanceAfter = reader.nextMoney();
+        LocalDateTime timestamp = reader.nextTimestamp();
+
+        return new Transaction(transactionId, type, amount, balanceAfter, timestamp);
     }
 }
\ No newline at end of file
@@ -6,146 +6,235 @@ import banking.model.User;
 import banking.model.Customer;
 import banking.util.PasswordUtil;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class TextFileUserDAO implements UserDAO {
-    private static final String USERS_FILE = "data/users.txt";
-    private static final String DATA_DIR = "data";
+    private static final String USERS_FILE = DataFiles.path("users.txt");
+    private static final DataFileLock FILE_LOCK = DataFileLock.forFile(USERS_FILE); // writes from any process
     private CustomerDAO customerDAO;
+    private Map<String, Credential> credentialsByUsername; // file order, loaded on first use
+    private final Map<String, Integer> nextSuffixByBase = new HashMap<>(); // next free "base<n>", 0 = base itself
+    private String indexStamp; // users.txt as of the index, see fileStamp
 
     public TextFileUserDAO() {
-        createDataDirectory();
+        DataFiles.createDataDirectory();
         this.customerDAO = new TextFileCustomerDAO();
     }
 
-    private void createDataDirectory() {
-        File dir = new File(DATA_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
+    public TextFileUserDAO(CustomerDAO customerDAO) {
+        DataFiles.createDataDirectory();
+        this.customerDAO = customerDAO;
     }
 
     @Override
-    public void saveUser(User user) {
+    public synchronized void saveUser(User user) {
         // Check if user already exists
-        User existing = findUserByUsername(user.getUsername());
-        if (existing != null) {
+        if (credentials().containsKey(user.getUsername())) {
             updateUser(user); // Update existing user
             return;
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(USERS_FILE, true))) {
-            String customerId = user.getCustomer() != null ? user.getCustomer().getCustomerId() : "";
-            String line = String.format("%s|%s|%s|%s",
-                    user.getUsername(),
-                    user.getHashedPassword(), // Store hashed password
-                    user.getRole(),
-                    customerId);
-
-            writer.write(line);
-            writer.newLine();
+        try {
+            FILE_LOCK.acquire();
+            try {
+                reloadIfChangedElsewhere();
+                if (credentialsByUsername.containsKey(user.getUsername())) {
+                    // Another instance added it meanwhile: its user must not be overwritten
+                    throw new IllegalArgumentException("Username already taken: " + user.getUsername());
+                }
+                appendUser(user);
+            } finally {
+                FILE_LOCK.release();
+            }
         } catch (IOException e) {
             System.err.println("Error saving user: " + e.getMessage());
         }
     }
 
     @Override
-    public User findUserByUsername(String username) {
-        List<User> users = findAllUsers();
-        return users.stream()
-                .filter(u -> u.getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+    public synchronized User findUserByUsername(String username) {
+        reloadIfChangedElsewhere(); // Users created by other instances can log in at once
+        Credential credential = credentials().get(username);
+        return credential != null ? toUser(username, credential) : null;
     }
 
     @Override
-    public List<User> findAllUsers() {
+    public synchronized List<User> findAllUsers() {
         List<User> users = new ArrayList<>();
-        File file = new File(USERS_FILE);
-        if (!file.exists()) return users;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-
-                String[] parts = line.split("\\|");
-                if (parts.length >= 3) {
-                    String username = parts[0];
-                    String hashedPassword = parts[1];
-                    String role = parts[2];
-                    String customerId = parts.length > 3 ? parts[3] : "";
-
-                    Customer customer = null;
-                    if (!customerId.isEmpty()) {
-                        customer = customerDAO.findCustomerById(customerId);
-                        if (customer == null) {
-                            System.err.println("Warning: Customer not found for ID: " + customerId);
-                        }
+        Map<String, Customer> customersById = null; // read once, only if some user is linked to a customer
+        for (Map.Entry<String, Credential> entry : credentials().entrySet()) {
+            Credential credential = entry.getValue();
+            Customer customer = null;
+            if (!credential.customerId.isEmpty()) {
+                if (customersById == null) {
+                    customersById = new HashMap<>();
+                    for (Customer c : customerDAO.findAllCustomers()) {
+                        customersById.put(c.getCustomerId(), c);
                     }
-
-                    // Create user with dummy password (we'll set the real hashed password)
-                    User user = new User(username, "dummy", role, customer);
-
-                    // Set the actual hashed password from file
-                    setHashedPasswordDirectly(user, hashedPassword);
-
-                    users.add(user);
+                }
+                customer = customersById.get(credential.customerId);
+                if (customer == null) {
+                    System.err.println("Warning: Customer not found for ID: " + credential.customerId);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading users: " + e.getMessage());
+            users.add(User.withHashedPassword(entry.getKey(), credential.hashedPassword, credential.role, customer));
         }
         return users;
     }
 
     @Override
-    public void updateUser(User user) {
-        List<User> allUsers = findAllUsers();
-        allUsers.removeIf(u -> u.getUsername().equals(user.getUsername()));
-        allUsers.add(user);
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(USERS_FILE))) {
-            for (User u : allUsers) {
-                String customerId = u.getCustomer() != null ? u.getCustomer().getCustomerId() : "";
-                String line = String.format("%s|%s|%s|%s",
-                        u.getUsername(),
-                        u.getHashedPassword(),
-                        u.getRole(),
-                        customerId);
-
-                writer.write(line);
-                writer.newLine();
+    public synchronized void updateUser(User user) {
+        Map<String, Credential> index = null;
+        Credential previous = null;
+        try {
+            FILE_LOCK.acquire();
+            try {
+                // The file is rewritten from the index, so it must include other instances' changes
+                reloadIfChangedElsewhere();
+                index = credentials();
+                previous = index.put(user.getUsername(), Credential.of(user));
+                if (previous == null) {
+                    reserveUsername(user.getUsername());
+                }
+
+                Map<String, Credential> written = index;
+                DataFiles.replace(USERS_FILE, writer -> {
+                    RecordWriter record = new RecordWriter();
+                    for (Map.Entry<String, Credential> entry : written.entrySet()) {
+                        formatUser(record, entry.getKey(), entry.getValue()).writeLine(writer);
+                    }
+                });
+                indexStamp = fileStamp();
+            } finally {
+                FILE_LOCK.release();
             }
         } catch (IOException e) {
             System.err.println("Error updating user: " + e.getMessage());
+            // Keep the index in step with the file we failed to rewrite
+            if (index == null) return;
+            if (previous != null) {
+                index.put(user.getUsername(), previous);
+            } else {
+                index.remove(user.getUsername());
+            }
         }
     }
 
+    /**
+     * Check a password against the credential index, without loading the user's customer
+     */
     @Override
-    public boolean validateCredentials(String username, String password) {
-        User user = findUserByUsername(username);
-        return user != null && user.authenticate(password);
+    public synchronized boolean validateCredentials(String username, String password) {
+        reloadIfChangedElsewhere();
+        Credential credential = credentials().get(username);
+        return credential != null && PasswordUtil.verifyPassword(password, credential.hashedPassword);
     }
 
     /**
-     * Helper method to set hashed password directly (for loading from file)
+     * Append a new user to users.txt and the index (caller holds FILE_LOCK and has reloaded the index)
      */
-    private void setHashedPasswordDirectly(User user, String hashedPassword) {
+    private void appendUser(User user) throws IOException {
+        Credential credential = Credential.of(user);
+        DataFiles.append(USERS_FILE, writer -> formatUser(new RecordWriter(), user.getUsername(), credential).writeLine(writer));
+        credentialsByUsername.put(user.getUsername(), credential);
+        reserveUsername(user.getUsername());
+        indexStamp = fileStamp();
+    }
+
+    private RecordWriter formatUser(RecordWriter record, String username, Credential credential) {
+        return record.begin()
+                .field(username)
+                .field(credential.hashedPassword) // Store hashed password
+                .field(credential.role)
+                .field(credential.customerId);
+    }
+
+    /**
+     * Build a user from its credential, resolving the linked customer (if any)
+     */
+    private User toUser(String username, Credential credential) {
+        Customer customer = null;
+        if (!credential.customerId.isEmpty()) {
+            customer = customerDAO.findCustomerById(credential.customerId);
+            if (customer == null) {
+                System.err.println("Warning: Customer not found for ID: " + credential.customerId);
+            }
+        }
+        return User.withHashedPassword(username, credential.hashedPassword, credential.role, customer);
+    }
+
+    /**
+     * The username to credential index, read from users.txt on first use and kept in step with every write
+     */
+    private Map<String, Credential> credentials() {
+        if (credentialsByUsername != null) return credentialsByUsername;
+
+        Map<String, Credential> index = new LinkedHashMap<>();
+        if (new File(USERS_FILE).exists()) {
+            RecordReader reader = new RecordReader();
+            try (BufferedReader fileReader = DataFiles.openReader(USERS_FILE)) {
+                String line;
+                while ((line = fileReader.readLine()) != null) {
+                    if (line.trim().isEmpty()) continue;
+
+                    reader.reset(line);
+                    int fieldCount = reader.fieldCount();
+                    if (fieldCount >= 3) {
+                        String username = reader.nextString();
+                        String hashedPassword = reader.nextString();
+                        String role = reader.nextString();
+                        String customerId = fieldCount > 3 ? reader.nextString() : "";
+                        index.put(username, new Credential(hashedPassword, role, customerId));
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading users: " + e.getMessage());
+            }
+        }
+        credentialsByUsername = index;
+        indexStamp = fileStamp();
+        for (String username : index.keySet()) {
+            reserveUsername(username);
+        }
+        return index;
+    }
+
+    /**
+     * Re-read the index if another instance wrote users.txt since it was read (one stat of the file).
+     * Writers call it holding FILE_LOCK, so what they check is what they write over
+     */
+    private void reloadIfChangedElsewhere() {
+        if (credentialsByUsername != null && !Objects.equals(fileStamp(), indexStamp)) {
+            credentialsByUsername = null;
+            nextSuffixByBase.clear();
+        }
+        credentials();
+    }
+
+    /**
+     * Identifies the file's current contents: rewrites replace the file, appends grow it
+     */
+    private static String fileStamp() {
         try {
-            java.lang.reflect.Field passwordField = User.class.getDeclaredField("hashedPassword");
-            passwordField.setAccessible(true);
-            passwordField.set(user, hashedPassword);
-        } catch (Exception e) {
-            System.err.println("Could not set hashed password for user: " + user.getUsername());
+            BasicFileAttributes attributes = Files.readAttributes(Path.of(USERS_FILE), BasicFileAttributes.class);
+            return attributes.fileKey() + "|" + attributes.size() + "|" + attributes.lastModifiedTime();
+        } catch (IOException e) {
+            return null; // No file yet
         }
     }
 
     /**
      * Link a customer to a user account
      */
-    public boolean linkCustomerToUser(String username, String customerId) {
+    public synchronized boolean linkCustomerToUser(String username, String customerId) {
         User user = findUserByUsername(username);
         if (user == null) {
             return false;
@@ -164,45 +253,94 @@ public class TextFileUserDAO implements UserDAO {
     /**
      * Find user by customer ID (reverse lookup)
      */
-    public User findUserByCustomerId(String customerId) {
-        List<User> users = findAllUsers();
-        return users.stream()
-                .filter(u -> u.getCustomer() != null && u.getCustomer().getCustomerId().equals(customerId))
-                .findFirst()
-                .orElse(null);
+    public synchronized User findUserByCustomerId(String customerId) {
+        for (Map.Entry<String, Credential> entry : credentials().entrySet()) {
+            if (entry.getValue().customerId.equals(customerId)) {
+                return toUser(entry.getKey(), entry.getValue());
+            }
+        }
+        return null;
     }
 
     /**
      * Create a user account for a new customer with auto-generated credentials
      */
-    public User createCustomerUser(Customer customer) {
-        // Generate username from customer name (you can make this more sophisticated)
-        String username = generateUsername(customer.getName());
-
+    public synchronized User createCustomerUser(Customer customer) {
         // Generate temporary password (you can make this configurable)
         String tempPassword = "123456"; // Simple default password
 
-        // Create and save the user
-        User user = new User(username, tempPassword, "CUSTOMER", customer);
-        saveUser(user);
-
-        return user;
+        try {
+            FILE_LOCK.acquire();
+            try {
+                // The name is chosen and written under the file lock, so no other instance can take it meanwhile
+                reloadIfChangedElsewhere();
+                User user = new User(generateUsername(customer.getName()), tempPassword, "CUSTOMER", customer);
+                appendUser(user);
+                return user;
+            } finally {
+                FILE_LOCK.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating user for " + customer.getName(), e);
+        }
     }
 
     /**
-     * Generate a unique username from customer name
+     * Generate a unique username from customer name (name, then name1, name2, ...)
+     * The next free suffix per name is kept in memory, so allocation is one map lookup.
+     * Caller holds FILE_LOCK and has reloaded the index, and saves the user before releasing it
      */
     private String generateUsername(String customerName) {
         String baseUsername = customerName.replaceAll("\\s+", "").toLowerCase();
-        String username = baseUsername;
-        int counter = 1;
+        Map<String, Credential> index = credentials();
+        int counter = nextSuffixByBase.getOrDefault(baseUsername, 0);
+        String username = counter == 0 ? baseUsername : baseUsername + counter;
 
-        // Ensure username is unique
-        while (findUserByUsername(username) != null) {
-            username = baseUsername + counter;
+        // Only loops past names chosen by hand, such as "name07"
+        while (index.containsKey(username)) {
             counter++;
+            username = baseUsername + counter;
         }
 
+        nextSuffixByBase.put(baseUsername, counter + 1);
         return username;
     }
+
+    /**
+     * Record a taken username so generated ones skip it: "name12" reserves suffixes up to 12 of "name"
+     */
+    private void reserveUsername(String username) {
+        int digitsStart = username.length();
+        while (digitsStart > 0 && Character.isDigit(username.charAt(digitsStart - 1))) {
+            digitsStart--;
+        }
+
+        int suffixLength = username.length() - digitsStart;
+        if (suffixLength == 0 || suffixLength > 9) {
+            nextSuffixByBase.merge(username, 1, Math::max);
+        } else {
+            int suffix = Integer.parseInt(username.substring(digitsStart));
+            nextSuffixByBase.merge(username.substring(0, digitsStart), suffix + 1, Math::max);
+        }
+    }
+
+    /**
+     * What users.txt stores for one user, kept without resolving the customer
+     */
+    private static final class Credential {
+        private final String hashedPassword;
+        private final String role;
+        private final String customerId;
+
+        private Credential(String hashedPassword, String role, String customerId) {
+            this.hashedPassword = hashedPassword;
+            this.role = role;
+            this.customerId = customerId;
+        }
+
+        private static Credential of(User user) {
+            String customerId = user.getCustomer() != null ? user.getCustomer().getCustomerId() : "";
+            return new Credential(user.getHashedPassword(), user.getRole(), customerId);
+        }
+    }
 }
\ No newline at end of file
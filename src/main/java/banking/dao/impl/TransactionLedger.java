@@ -0,0 +1,485 @@
+package banking.dao.impl;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The transactions ledger file together with a persistent per-account offset index.
+ * The index file holds one "accountNumber|offset|length" line per ledger record, so an
+ * account's history is read with positional reads of just its own records.
+ * Before each lookup or append, entries other processes added to the index file are read, and
+ * records still missing from it (after a crash) are indexed from the ledger's unindexed tail;
+ * writes to the ledger and the index file are made under the ledger's file lock.
+ * Single records can also be appended through a group-commit writer thread (appendAsync),
+ * which turns many concurrent postings into one write and one sync.
+ */
+public class TransactionLedger {
+    private static final int QUEUE_CAPACITY = 16_384;
+    private static final int MAX_GROUP_SIZE = 4_096;
+
+    private final Path ledgerPath;
+    private final String indexFile;
+    private final DataFileLock fileLock;
+    private final Map<String, Postings> postingsByAccount = new HashMap<>();
+    private final Postings allPostings = new Postings(); // every record, in ledger order
+    private long indexedUpTo; // ledger bytes covered by the postings
+    private long indexReadUpTo; // index file bytes read into the postings
+    private boolean loaded;
+    private FileChannel readChannel;
+    private FileChannel writeChannel;
+    private Writer indexWriter;
+
+    // Group commit: producers queue records, one writer thread appends them in batches
+    private final BlockingQueue<PendingRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ReadWriteLock appenderLock = new ReentrantReadWriteLock(); // write-locked by close()
+    private volatile Thread writerThread;
+
+    public TransactionLedger(String ledgerFile, String indexFile) {
+        this.ledgerPath = Path.of(ledgerFile);
+        this.indexFile = indexFile;
+        this.fileLock = DataFileLock.forFile(ledgerFile);
+    }
+
+    /**
+     * Append records for one account and index them
+     */
+    public synchronized void append(String accountNumber, List<String> records) throws IOException {
+        append(Map.of(accountNumber, records));
+    }
+
+    /**
+     * Append records for any number of accounts in one write and index them
+     */
+    public synchronized void append(Map<String, List<String>> recordsByAccount) throws IOException {
+        List<String> accounts = new ArrayList<>();
+        List<String> records = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : recordsByAccount.entrySet()) {
+            for (String record : entry.getValue()) {
+                accounts.add(entry.getKey());
+                records.add(record);
+            }
+        }
+        append(accounts, records);
+    }
+
+    /**
+     * Queue one record for the group-commit writer. The future completes once the record is in
+     * the ledger (and synced, if the durability level syncs each commit); the writer writes
+     * everything queued so far in one write with one sync. Blocks while the queue is full
+     */
+    public CompletableFuture<Void> appendAsync(String accountNumber, String record) {
+        PendingRecord pending = new PendingRecord(accountNumber, record);
+        appenderLock.readLock().lock();
+        try {
+            if (writerThread == null) {
+                startWriter();
+            }
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        } finally {
+            appenderLock.readLock().unlock();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Append records (accountNumbers[i] owns records[i]) in ledger order, in one write
+     */
+    private synchronized void append(List<String> accountNumbers, List<String> records) throws IOException {
+        if (records.isEmpty()) return;
+
+        // Other processes may append too: hold the ledger's file lock from catching up until our
+        // records are written, so their offsets are where we index them
+        fileLock.acquire();
+        try {
+            appendLocked(accountNumbers, records);
+        } finally {
+            fileLock.release();
+        }
+    }
+
+    private void appendLocked(List<String> accountNumbers, List<String> records) throws IOException {
+        ensureLoaded();
+        catchUp();
+
+        FileChannel channel = writeChannel();
+        long base = channel.size();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (base > indexedUpTo) {
+            // A crash left a torn last record (catchUp indexes only whole lines): end its line,
+            // so ours start on lines of their own
+            bytes.write('\n');
+        }
+        int[] starts = new int[records.size()];
+        int[] lengths = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            byte[] record = (records.get(i) + "\n").getBytes(StandardCharsets.UTF_8);
+            starts[i] = bytes.size();
+            lengths[i] = record.length;
+            bytes.write(record);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        // The index is not synced: it is rebuilt from the ledger's unindexed tail after a crash
+        DataFiles.syncCommit(ledgerPath.toString(), () -> channel.force(false));
+        indexedUpTo = base + bytes.size();
+
+        StringBuilder indexLines = new StringBuilder();
+        for (int i = 0; i < records.size(); i++) {
+            long offset = base + starts[i];
+            addPosting(accountNumbers.get(i), offset, lengths[i]);
+            indexLines.append(accountNumbers.get(i)).append('|').append(offset).append('|').append(lengths[i]).append('\n');
+        }
+        appendToIndexFile(indexLines);
+    }
+
+    /**
+     * Read the raw records of one account, oldest first
+     */
+    public synchronized List<String> readRecords(String accountNumber) throws IOException {
+        ensureLoaded();
+        catchUp();
+
+        List<String> records = new ArrayList<>();
+        Postings postings = postingsByAccount.get(accountNumber);
+        if (postings == null) return records;
+
+        FileChannel channel = readChannel();
+        for (int i = 0; i < postings.size; i++) {
+            records.add(readRecord(channel, postings.offsets[i], postings.lengths[i]));
+        }
+        return records;
+    }
+
+    /**
+     * Number of records for one account, straight from the index
+     */
+    public synchronized int count(String accountNumber) throws IOException {
+        ensureLoaded();
+        catchUp();
+
+        Postings postings = postingsByAccount.get(accountNumber);
+        return postings != null ? postings.size : 0;
+    }
+
+    /**
+     * Lazily read the raw records of one account (or of every account when accountNumber is null).
+     * The iterator covers the records present when it was created.
+     */
+    public synchronized Iterator<String> iterateRecords(String accountNumber, boolean newestFirst) throws IOException {
+        ensureLoaded();
+        catchUp();
+
+        Postings postings = accountNumber == null ? allPostings : postingsByAccount.get(accountNumber);
+        if (postings == null || postings.size == 0) return Collections.emptyIterator();
+
+        // Postings arrays are only appended to or replaced by larger copies, so this snapshot stays valid
+        long[] offsets = postings.offsets;
+        int[] lengths = postings.lengths;
+        int size = postings.size;
+        FileChannel channel = readChannel();
+        return new Iterator<>() {
+            private int returned;
+
+            @Override
+            public boolean hasNext() {
+                return returned < size;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int i = newestFirst ? size - 1 - returned : returned;
+                returned++;
+                try {
+                    return readRecord(channel, offsets[i], lengths[i]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Write everything still queued, stop the writer thread and close the files.
+     * They are reopened (and the writer restarted) if the ledger is used again
+     */
+    public void close() throws IOException {
+        appenderLock.writeLock().lock();
+        try {
+            if (writerThread != null) {
+                queue.put(PendingRecord.STOP); // Producers are locked out, so it is queued last
+                writerThread.join();
+                writerThread = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            appenderLock.writeLock().unlock();
+        }
+
+        synchronized (this) {
+            if (readChannel != null) {
+                readChannel.close();
+                readChannel = null;
+            }
+            if (writeChannel != null) {
+                writeChannel.close();
+                writeChannel = null;
+            }
+            if (indexWriter != null) {
+                indexWriter.close();
+                indexWriter = null;
+            }
+        }
+    }
+
+    private void startWriter() {
+        synchronized (queue) {
+            if (writerThread != null) return;
+
+            Thread thread = new Thread(this::writeQueuedRecords, "transaction-ledger-writer");
+            thread.setDaemon(true);
+            thread.start();
+            writerThread = thread;
+        }
+    }
+
+    /**
+     * Writer thread: take whatever is queued (up to MAX_GROUP_SIZE records), write it as one
+     * append, then complete each record's future
+     */
+    private void writeQueuedRecords() {
+        List<PendingRecord> group = new ArrayList<>(MAX_GROUP_SIZE);
+        List<String> accounts = new ArrayList<>(MAX_GROUP_SIZE);
+        List<String> records = new ArrayList<>(MAX_GROUP_SIZE);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Only close() stops the writer, so nothing queued is ever dropped
+            }
+            queue.drainTo(group, MAX_GROUP_SIZE - 1);
+
+            for (PendingRecord pending : group) {
+                if (pending == PendingRecord.STOP) {
+                    stopping = true; // Always last: close() locks producers out before queueing it
+                } else {
+                    accounts.add(pending.accountNumber);
+                    records.add(pending.record);
+                }
+            }
+            try {
+                append(accounts, records);
+                for (PendingRecord pending : group) {
+                    pending.future.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (PendingRecord pending : group) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+            group.clear();
+            accounts.clear();
+            records.clear();
+        }
+    }
+
+    private void ensureLoaded() throws IOException {
+        if (loaded) return;
+        loaded = true;
+        readIndexFile();
+    }
+
+    /**
+     * Add the index file's entries written since the last read, by this process or another.
+     * A torn last line is left unread (see appendToIndexFile)
+     */
+    private void readIndexFile() throws IOException {
+        File index = new File(indexFile);
+        if (!index.exists() || index.length() <= indexReadUpTo) return;
+
+        RecordReader reader = new RecordReader();
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(index))) {
+            in.skipNBytes(indexReadUpTo);
+            ByteArrayOutputStream entry = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                entry.write(b);
+                if (b != '\n') continue;
+
+                indexReadUpTo += entry.size();
+                reader.reset(entry.toString(StandardCharsets.UTF_8).trim());
+                entry.reset();
+                if (reader.fieldCount() < 3) continue;
+
+                String accountNumber = reader.nextString();
+                long offset = reader.nextLong();
+                int length = reader.nextInt();
+                // Entries re-indexed after a crash may repeat; offsets per account only ever grow
+                Postings postings = postingsByAccount.get(accountNumber);
+                if (postings != null && postings.size > 0 && offset <= postings.offsets[postings.size - 1]) continue;
+
+                addPosting(accountNumber, offset, length);
+                indexedUpTo = Math.max(indexedUpTo, offset + length);
+            }
+        }
+    }
+
+    /**
+     * Index any complete ledger records written after the last indexed one. Takes the file lock
+     * (if the caller does not hold it already), since the new entries go to the shared index file
+     */
+    private void catchUp() throws IOException {
+        File ledger = ledgerPath.toFile();
+        if (!ledger.exists() || ledger.length() <= indexedUpTo) return;
+
+        fileLock.acquire();
+        try {
+            catchUpLocked(ledger);
+        } finally {
+            fileLock.release();
+        }
+    }
+
+    private void catchUpLocked(File ledger) throws IOException {
+        readIndexFile(); // Records other processes appended are indexed already
+        if (ledger.length() <= indexedUpTo) return;
+
+        StringBuilder indexLines = new StringBuilder();
+        RecordReader reader = new RecordReader();
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(ledger))) {
+            in.skipNBytes(indexedUpTo);
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            long recordStart = indexedUpTo;
+            int b;
+            while ((b = in.read()) != -1) {
+                record.write(b);
+                if (b != '\n') continue;
+
+                String line = record.toString(StandardCharsets.UTF_8);
+                int length = record.size();
+                record.reset();
+
+                reader.reset(line.trim());
+                if (reader.fieldCount() >= 6) {
+                    reader.skip();
+                    String accountNumber = reader.nextString();
+                    addPosting(accountNumber, recordStart, length);
+                    indexLines.append(accountNumber).append('|').append(recordStart).append('|').append(length).append('\n');
+                }
+                recordStart += length;
+                indexedUpTo = recordStart;
+            }
+        }
+        appendToIndexFile(indexLines);
+    }
+
+    private void addPosting(String accountNumber, long offset, int length) {
+        postingsByAccount.computeIfAbsent(accountNumber, a -> new Postings()).add(offset, length);
+        allPostings.add(offset, length);
+    }
+
+    /**
+     * Append entries to the index file (caller holds the file lock)
+     */
+    private void appendToIndexFile(CharSequence lines) throws IOException {
+        if (lines.length() == 0) return;
+
+        readIndexFile(); // Anything left unread now is a torn line
+        if (indexWriter == null) {
+            indexWriter = DataFiles.openWriter(indexFile, true);
+        }
+        if (new File(indexFile).length() > indexReadUpTo) {
+            indexWriter.append('\n'); // Ends a line torn by a crash, which readIndexFile left unread
+        }
+        indexWriter.append(lines);
+        indexWriter.flush();
+        indexReadUpTo = new File(indexFile).length();
+    }
+
+    /**
+     * The ledger's append channel, reopened if an interrupted write closed it
+     * (ClosedByInterruptException), so one interrupt does not break every later append
+     */
+    private FileChannel writeChannel() throws IOException {
+        if (writeChannel == null || !writeChannel.isOpen()) {
+            writeChannel = FileChannel.open(ledgerPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return writeChannel;
+    }
+
+    private FileChannel readChannel() throws IOException {
+        if (readChannel == null || !readChannel.isOpen()) {
+            readChannel = FileChannel.open(ledgerPath, StandardOpenOption.READ);
+        }
+        return readChannel;
+    }
+
+    private String readRecord(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) break;
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * A record waiting for the group-commit writer, with the future its caller waits on
+     */
+    private static class PendingRecord {
+        private static final PendingRecord STOP = new PendingRecord(null, null);
+
+        private final String accountNumber;
+        private final String record;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingRecord(String accountNumber, String record) {
+            this.accountNumber = accountNumber;
+            this.record = record;
+        }
+    }
+
+    /**
+     * Growable offset/length arrays for one account's records
+     */
+    private static class Postings {
+        private long[] offsets = new long[4];
+        private int[] lengths = new int[4];
+        private int size;
+
+        private void add(long offset, int length) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+    }
+}
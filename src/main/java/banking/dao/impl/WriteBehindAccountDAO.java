@@ -0,0 +1,335 @@
+package banking.dao.impl;
+
+import banking.dao.AccountDAO;
+import banking.dao.ConcurrentUpdateException;
+import banking.model.Account;
+import banking.model.AccountLocks;
+import banking.model.Money;
+import banking.model.Transaction;
+import java.io.Closeable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind AccountDAO: updateAccount only marks the account dirty, and a background
+ * flusher writes all dirty accounts (with their new transactions) to the underlying DAO in
+ * one batch update. Repeated updates to a hot account between flushes cost one write.
+ *
+ * A flush runs every flush interval, or sooner once the dirty count reaches the threshold,
+ * and on close(). Dirty accounts are capped: at the cap, updateAccount blocks until the
+ * flusher has taken the current batch, so memory stays bounded when writes fall behind.
+ * The flusher only writes accounts whose lock (see AccountLocks) it can take without waiting,
+ * so a caller blocked here while holding an account lock cannot deadlock it; busy accounts
+ * wait for the next flush. Multi-account updates (transfers) are written straight through,
+ * so they stay one atomic commit.
+ *
+ * If another instance updated an account first, the flusher reloads it and replays its unflushed
+ * postings on top (see Account.repost), then writes it with the next flush; a withdrawal replayed
+ * that way may leave the account below its minimum balance, which is reported. refreshAccounts,
+ * which rolls back a failed write-through, replays them the same way, so only the failed change is lost.
+ *
+ * Updates are lost if the process dies before the flush, so this is opt-in. Enable it with
+ * -Dbanking.accounts.writeBehind=true, tuned with banking.writeBehind.flushMillis,
+ * banking.writeBehind.flushThreshold and banking.writeBehind.maxDirty.
+ */
+public class WriteBehindAccountDAO implements AccountDAO, Closeable {
+    private static final int CLOSE_ATTEMPTS = 100;
+
+    private final AccountDAO delegate;
+    private final long flushIntervalMillis;
+    private final int flushThreshold;
+    private final int maxDirty;
+    private final Object flushLock = new Object(); // one flush at a time, so batches are written in order
+    private final Thread flusher;
+    private LinkedHashMap<Account, Acknowledged> dirty = new LinkedHashMap<>(); // guarded by this
+    private boolean closed;
+
+    public WriteBehindAccountDAO(AccountDAO delegate) {
+        this(delegate, Long.getLong("banking.writeBehind.flushMillis", 200),
+                Integer.getInteger("banking.writeBehind.flushThreshold", 1_000),
+                Integer.getInteger("banking.writeBehind.maxDirty", 10_000));
+    }
+
+    public WriteBehindAccountDAO(AccountDAO delegate, long flushIntervalMillis, int flushThreshold, int maxDirty) {
+        this.delegate = delegate;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushThreshold = flushThreshold;
+        this.maxDirty = Math.max(maxDirty, flushThreshold);
+        this.flusher = new Thread(this::runFlusher, "account-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void saveAccount(Account account) {
+        delegate.saveAccount(account);
+    }
+
+    @Override
+    public Account findAccountByNumber(String accountNumber) {
+        flush();
+        return delegate.findAccountByNumber(accountNumber);
+    }
+
+    @Override
+    public List<Account> findAccountsByCustomer(String customerId) {
+        flush();
+        return delegate.findAccountsByCustomer(customerId);
+    }
+
+    @Override
+    public List<Account> findAllAccounts() {
+        flush();
+        return delegate.findAllAccounts();
+    }
+
+    @Override
+    public void updateAccount(Account account) {
+        synchronized (this) {
+            if (markDirty(account)) return;
+        }
+        delegate.updateAccount(account);
+    }
+
+    @Override
+    public void updateAccounts(Collection<Account> accounts) {
+        if (accounts.size() == 1) {
+            updateAccount(accounts.iterator().next());
+            return;
+        }
+        // Written through: the accounts must reach the journal together. Any dirty copy of
+        // them is the same object, so its later flush just rewrites the same state
+        delegate.updateAccounts(accounts);
+    }
+
+    /**
+     * Reload the accounts, dropping changes not yet acknowledged (a failed write-through), but
+     * replaying the postings already acknowledged by updateAccount and not flushed yet
+     */
+    @Override
+    public void refreshAccounts(Collection<Account> accounts) {
+        synchronized (flushLock) { // So no account is out of dirty in a flush batch meanwhile
+            Map<Account, Acknowledged> pending = new HashMap<>();
+            synchronized (this) {
+                for (Account account : accounts) {
+                    Acknowledged acknowledged = dirty.get(account);
+                    if (acknowledged != null) {
+                        pending.put(account, acknowledged);
+                    }
+                }
+            }
+            replay(accounts, pending);
+
+            synchronized (this) {
+                for (Account account : pending.keySet()) {
+                    if (dirty.containsKey(account)) {
+                        dirty.put(account, Acknowledged.of(account)); // The replayed postings
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write every dirty account whose lock is free now
+     * @return the number of dirty accounts left for the next flush
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            Map<Account, Acknowledged> batch;
+            synchronized (this) {
+                if (dirty.isEmpty()) return 0;
+                batch = dirty;
+                dirty = new LinkedHashMap<>();
+                notifyAll(); // Wake callers waiting for room
+            }
+
+            List<Account> locked = new ArrayList<>(batch.size());
+            List<Account> busy = new ArrayList<>();
+            for (Account account : batch.keySet()) {
+                if (AccountLocks.lockFor(account.getAccountNumber()).tryLock()) {
+                    locked.add(account);
+                } else {
+                    busy.add(account);
+                }
+            }
+            try {
+                if (!locked.isEmpty()) {
+                    delegate.updateAccounts(locked);
+                }
+            } catch (ConcurrentUpdateException e) {
+                // Nothing was written: replay the stale accounts' postings on their reloaded state
+                // and retry the whole batch next time
+                Map<Account, Acknowledged> stale = new HashMap<>();
+                for (Account account : locked) {
+                    if (e.getAccountNumbers().contains(account.getAccountNumber())) {
+                        stale.put(account, batch.get(account));
+                    }
+                }
+                replay(stale.keySet(), stale);
+                for (Account account : stale.keySet()) {
+                    batch.put(account, Acknowledged.of(account));
+                }
+                busy.addAll(locked);
+            } catch (UncheckedIOException e) {
+                // Nothing was written: keep the whole batch dirty and try again next flush
+                System.err.println("Write-behind flush failed, retrying: " + e.getMessage());
+                busy.addAll(locked);
+            } finally {
+                for (Account account : locked) {
+                    AccountLocks.lockFor(account.getAccountNumber()).unlock();
+                }
+            }
+
+            synchronized (this) {
+                if (!busy.isEmpty()) {
+                    // Back to the front, ahead of anything dirtied during this flush
+                    LinkedHashMap<Account, Acknowledged> requeued = new LinkedHashMap<>();
+                    for (Account account : busy) {
+                        requeued.put(account, batch.get(account));
+                    }
+                    requeued.putAll(dirty); // Newer acknowledgements win
+                    dirty = requeued;
+                }
+                return dirty.size();
+            }
+        }
+    }
+
+    /**
+     * Stop the flusher and write everything still dirty; later updates are written straight through
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int attempt = 0; attempt < CLOSE_ATTEMPTS; attempt++) {
+            if (flush() == 0) return;
+            try {
+                Thread.sleep(10); // Accounts still locked by a posting in progress
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        System.err.println("Write-behind closed with unflushed accounts");
+    }
+
+    public synchronized int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Add an account to the dirty set, blocking while the set is full (caller holds this)
+     * @return false if closed, so the caller must write the account itself
+     */
+    private boolean markDirty(Account account) {
+        boolean interrupted = false;
+        while (dirty.size() >= maxDirty && !dirty.containsKey(account) && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true; // Keep waiting: dropping the update would lose it
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (closed) return false;
+
+        dirty.put(account, Acknowledged.of(account));
+        if (dirty.size() >= flushThreshold) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Reload accounts and re-apply the pending ones' acknowledged postings, which were already
+     * reported as done; anything posted after them is dropped (caller holds the accounts' locks)
+     */
+    private void replay(Collection<Account> accounts, Map<Account, Acknowledged> pending) {
+        Map<Account, List<Transaction>> postings = new HashMap<>();
+        for (Map.Entry<Account, Acknowledged> entry : pending.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().postings(entry.getKey()));
+        }
+        delegate.refreshAccounts(accounts);
+
+        for (Map.Entry<Account, Acknowledged> entry : pending.entrySet()) {
+            Account account = entry.getKey();
+            if (account.getLastUnsavedTransaction() != null) continue; // Not reloaded, still as posted
+
+            account.repost(postings.get(account), entry.getValue().interestPeriod);
+            if (account.getBalanceThebe() < Money.ofPula(account.getMinimumBalance())) {
+                System.err.println("Write-behind replayed postings to " + account.getAccountNumber()
+                        + " that another instance also drew on, leaving it below its minimum balance: "
+                        + Money.format(account.getBalanceThebe()));
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            synchronized (this) {
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                try {
+                    long remaining;
+                    while (!closed && dirty.size() < flushThreshold
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) return; // close() does the final flush
+            }
+            flush();
+        }
+    }
+
+    /**
+     * How far a dirty account's postings were acknowledged: its newest transaction and interest
+     * period when updateAccount last returned for it
+     */
+    private static final class Acknowledged {
+        private final String lastTransactionId; // null if it had no unsaved transactions
+        private final String interestPeriod;
+
+        private Acknowledged(String lastTransactionId, String interestPeriod) {
+            this.lastTransactionId = lastTransactionId;
+            this.interestPeriod = interestPeriod;
+        }
+
+        private static Acknowledged of(Account account) {
+            Transaction last = account.getLastUnsavedTransaction();
+            return new Acknowledged(last != null ? last.getTransactionId() : null, account.getLastInterestPeriod());
+        }
+
+        /**
+         * The account's unsaved transactions up to the acknowledged one (none if it was saved since)
+         */
+        private List<Transaction> postings(Account account) {
+            List<Transaction> unsaved = account.getUnsavedTransactions();
+            for (int i = unsaved.size() - 1; i >= 0; i--) {
+                if (unsaved.get(i).getTransactionId().equals(lastTransactionId)) {
+                    return unsaved.subList(0, i + 1);
+                }
+            }
+            return List.of();
+        }
+    }
+}
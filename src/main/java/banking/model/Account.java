@@ -2,26 +2,56 @@ package banking.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Savings account with minimum balance and interest
  * Extends Account class with specific interest rules
  */
 public abstract class Account {
+    // Where new transaction IDs come from. The application installs the persistent IdGenerator
+    // (see BankingApplication); the default is in-memory, so the model alone never touches files
+    private static final AtomicLong localIds = new AtomicLong(System.currentTimeMillis() << 12);
+    private static volatile Supplier<String> transactionIds =
+            () -> "TXN" + Long.toString(localIds.incrementAndGet(), 36).toUpperCase();
+
     // Encapsulated attributes
     private String accountNumber;
-    private double balance;
+    private volatile long balance; // in thebe, see Money; written only under the account's lock
     private String branch;
     private Customer customer;
-    private List<Transaction> transactions;
+    private List<Transaction> transactions; // persisted history, null until lazily loaded
+    private List<Transaction> unsavedTransactions; // created since the account was loaded or last saved
+    private Supplier<List<Transaction>> transactionLoader;
+    private volatile String lastInterestPeriod = ""; // period (e.g. "2025-10") interest was last credited for
+    private volatile long version; // saved record version this copy is based on, see AccountDAO.updateAccounts
+    private final ReentrantLock lock; // striped lock shared by every copy of this account, see AccountLocks
     
     // Constructor
     public Account(String accountNumber, double initialBalance, String branch, Customer customer) {
+        this(accountNumber, branch, customer, Money.ofPula(initialBalance));
+    }
+
+    /**
+     * Create an account with its balance in thebe (see the subclasses' withBalanceThebe)
+     */
+    protected Account(String accountNumber, String branch, Customer customer, long balanceThebe) {
         this.accountNumber = accountNumber;
-        this.balance = initialBalance;
+        this.lock = AccountLocks.lockFor(accountNumber);
+        this.balance = balanceThebe;
         this.branch = branch;
         this.customer = customer;
         this.transactions = new ArrayList<>();
+        this.unsavedTransactions = new ArrayList<>();
+    }
+
+    /**
+     * Set where new transaction IDs come from, for every account
+     */
+    public static void setTransactionIdSupplier(Supplier<String> supplier) {
+        transactionIds = supplier;
     }
 
     // Getters and Setters
@@ -30,100 +60,292 @@ public abstract class Account {
     }
     
     public double getBalance() {
+        return Money.toPula(balance);
+    }
+
+    public long getBalanceThebe() {
         return balance;
     }
     
     protected void setBalance(double balance) {
-        this.balance = balance;
+        lock.lock();
+        try {
+            this.balance = Money.ofPula(balance);
+        } finally {
+            lock.unlock();
+        }
     }
     
     public String getBranch() {
         return branch;
     }
+
+    public String getLastInterestPeriod() {
+        return lastInterestPeriod;
+    }
+
+    public void setLastInterestPeriod(String lastInterestPeriod) {
+        this.lastInterestPeriod = lastInterestPeriod != null ? lastInterestPeriod : "";
+    }
     
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Customer getCustomer() {
         return customer;
     }
     
     public List<Transaction> getTransactions() {
-        return new ArrayList<>(transactions); // Return copy for safety
+        lock.lock();
+        try {
+            List<Transaction> all = new ArrayList<>(loadedTransactions()); // Return copy for safety
+            all.addAll(unsavedTransactions);
+            return all;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transactions created since the account was loaded or last saved
+     */
+    public List<Transaction> getUnsavedTransactions() {
+        lock.lock();
+        try {
+            return new ArrayList<>(unsavedTransactions);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The newest transaction not saved yet, or null if there is none
+     */
+    public Transaction getLastUnsavedTransaction() {
+        lock.lock();
+        try {
+            return unsavedTransactions.isEmpty() ? null : unsavedTransactions.get(unsavedTransactions.size() - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark transactions (as returned by getUnsavedTransactions) as persisted;
+     * any created since then stay unsaved
+     */
+    public void markTransactionsSaved(List<Transaction> saved) {
+        lock.lock();
+        try {
+            if (transactions != null) {
+                transactions.addAll(saved);
+            }
+            // If history has not been loaded yet, the loader will fetch the saved ones with it
+            unsavedTransactions.removeAll(saved);
+        } finally {
+            lock.unlock();
+        }
     }
 
     // Abstract methods - must be implemented by subclasses
-    public abstract double calculateInterest();
+    public abstract long calculateInterestThebe();
     public abstract double getMinimumBalance();
+
+    public double calculateInterest() {
+        return Money.toPula(calculateInterestThebe());
+    }
     
     // Concrete methods with business logic
     public boolean deposit(double amount) {
-        if (amount <= 0) {
+        long thebe = Money.ofPula(amount);
+        if (thebe <= 0) {
             System.out.println("Deposit amount must be positive");
             return false;
         }
         
-        balance += amount;
-        Transaction transaction = new Transaction(
-            "TXN" + System.currentTimeMillis(),
-            "DEPOSIT",
-            amount,
-            balance
-        );
-        transactions.add(transaction);
-        System.out.println("Deposit successful. New balance: " + balance);
+        long newBalance;
+        lock.lock();
+        try {
+            balance += thebe;
+            newBalance = balance;
+            Transaction transaction = new Transaction(
+                transactionIds.get(),
+                "DEPOSIT",
+                thebe,
+                balance
+            );
+            unsavedTransactions.add(transaction);
+        } finally {
+            lock.unlock();
+        }
+        System.out.println("Deposit successful. New balance: " + Money.format(newBalance));
         return true;
     }
     
     public boolean withdraw(double amount) {
-        if (amount <= 0) {
+        long thebe = Money.ofPula(amount);
+        if (thebe <= 0) {
             System.out.println("Withdrawal amount must be positive");
             return false;
         }
         
-        if (balance - amount < getMinimumBalance()) {
-            System.out.println("Insufficient funds. Minimum balance requirement not met.");
-            return false;
+        long newBalance;
+        lock.lock();
+        try {
+            // Check and debit under the lock so concurrent withdrawals cannot overdraw
+            if (balance - thebe < Money.ofPula(getMinimumBalance())) {
+                System.out.println("Insufficient funds. Minimum balance requirement not met.");
+                return false;
+            }
+
+            balance -= thebe;
+            newBalance = balance;
+            Transaction transaction = new Transaction(
+                transactionIds.get(),
+                "WITHDRAWAL",
+                thebe,
+                balance
+            );
+            unsavedTransactions.add(transaction);
+        } finally {
+            lock.unlock();
         }
-        
-        balance -= amount;
-        Transaction transaction = new Transaction(
-            "TXN" + System.currentTimeMillis(),
-            "WITHDRAWAL",
-            amount,
-            balance
-        );
-        transactions.add(transaction);
-        System.out.println("Withdrawal successful. New balance: " + balance);
+        System.out.println("Withdrawal successful. New balance: " + Money.format(newBalance));
         return true;
     }
     
     public void applyInterest() {
-        double interest = calculateInterest();
+        long interest = creditInterest();
         if (interest > 0) {
-            balance += interest;
-            Transaction transaction = new Transaction(
-                "TXN" + System.currentTimeMillis(),
-                "INTEREST",
-                interest,
-                balance
-            );
-            transactions.add(transaction);
-            System.out.println("Interest applied: " + interest + ". New balance: " + balance);
+            System.out.println("Interest applied: " + Money.format(interest) + ". New balance: " + Money.format(balance));
         }
     }
-    
+
+    /**
+     * Credit this period's interest and record the INTEREST transaction, without console output
+     * (used by batch runs over many accounts)
+     * @return the interest credited in thebe, or 0 if none is due
+     */
+    public long creditInterest() {
+        lock.lock();
+        try {
+            long interest = calculateInterestThebe();
+            if (interest > 0) {
+                balance += interest;
+                Transaction transaction = new Transaction(
+                    transactionIds.get(),
+                    "INTEREST",
+                    interest,
+                    balance
+                );
+                unsavedTransactions.add(transaction);
+                return interest;
+            }
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Credit interest for a period at most once, marking the account with the period
+     * @return the interest credited in thebe, or 0 if none is due or the period was already paid
+     */
+    public long creditInterest(String period) {
+        lock.lock();
+        try {
+            if (period.equals(lastInterestPeriod)) return 0;
+
+            long interest = creditInterest();
+            if (interest > 0) {
+                lastInterestPeriod = period;
+            }
+            return interest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void printStatement() {
         System.out.println("\n=== ACCOUNT STATEMENT ===");
         System.out.println("Account Number: " + accountNumber);
         System.out.println("Customer: " + customer.getName());
         System.out.println("Branch: " + branch);
-        System.out.println("Current Balance: " + balance);
+        System.out.println("Current Balance: " + Money.format(balance));
         System.out.println("\nTransaction History:");
-        for (Transaction t : transactions) {
+        for (Transaction t : getTransactions()) {
             System.out.println(t);
         }
         System.out.println("========================\n");
     }
 
+    /**
+     * Reset this copy to the saved state after another instance updated the account:
+     * unsaved transactions are dropped and the history is reloaded on next access
+     */
+    public void restore(long balanceThebe, String lastInterestPeriod, long version,
+                        Supplier<List<Transaction>> transactionLoader) {
+        lock.lock();
+        try {
+            this.balance = balanceThebe;
+            setLastInterestPeriod(lastInterestPeriod);
+            this.version = version;
+            this.unsavedTransactions.clear();
+            setTransactionLoader(transactionLoader);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-apply postings (as returned by getUnsavedTransactions before restore) on top of the
+     * restored state, keeping their IDs and timestamps. They were already accepted, so the minimum
+     * balance is not checked again. INTEREST postings were credited for interestPeriod and are
+     * skipped if the restored state has that period paid already
+     */
+    public void repost(List<Transaction> postings, String interestPeriod) {
+        lock.lock();
+        try {
+            boolean interestPaid = !interestPeriod.isEmpty() && interestPeriod.equals(lastInterestPeriod);
+            for (Transaction posting : postings) {
+                boolean interest = posting.getType().equals("INTEREST");
+                if (interest && interestPaid) continue;
+
+                balance += posting.getType().equals("WITHDRAWAL") ? -posting.getAmountThebe() : posting.getAmountThebe();
+                unsavedTransactions.add(new Transaction(posting.getTransactionId(), posting.getType(),
+                        posting.getAmountThebe(), balance, posting.getTimestamp()));
+                if (interest && !interestPeriod.isEmpty()) {
+                    lastInterestPeriod = interestPeriod;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void setTransactions(List<Transaction> transactions) {
-        this.transactions = new ArrayList<>(transactions);
+        this.transactions = new ArrayList<>(transactions); // Loaded history is already persisted
+        this.transactionLoader = null;
+    }
+
+    /**
+     * Load the persisted history from the loader on first access instead of up front
+     */
+    public void setTransactionLoader(Supplier<List<Transaction>> transactionLoader) {
+        this.transactions = null;
+        this.transactionLoader = transactionLoader;
+    }
+
+    private List<Transaction> loadedTransactions() {
+        if (transactions == null) {
+            transactions = new ArrayList<>(transactionLoader.get());
+            transactionLoader = null;
+        }
+        return transactions;
     }
 }
\ No newline at end of file
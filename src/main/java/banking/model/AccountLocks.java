@@ -0,0 +1,78 @@
+package banking.model;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks guarding account state, shared by every Account object for the same account number.
+ * A fixed table of locks is indexed by the account number's hash, so locking needs no per-account
+ * allocation; accounts that share a stripe simply serialise with each other.
+ * Locks for several accounts are always taken in stripe order, so transfers and batch commits
+ * cannot deadlock.
+ */
+public final class AccountLocks {
+    private static final int STRIPES = 1024; // power of two
+    private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private AccountLocks() {
+    }
+
+    public static ReentrantLock lockFor(String accountNumber) {
+        return locks[stripe(accountNumber)];
+    }
+
+    /**
+     * Lock two accounts, lower stripe first; unlock with unlockBoth
+     */
+    public static void lockBoth(String first, String second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        locks[Math.min(a, b)].lock();
+        if (a != b) {
+            locks[Math.max(a, b)].lock();
+        }
+    }
+
+    public static void unlockBoth(String first, String second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a != b) {
+            locks[Math.max(a, b)].unlock();
+        }
+        locks[Math.min(a, b)].unlock();
+    }
+
+    /**
+     * Lock any number of accounts, in stripe order; unlock with unlockAll
+     */
+    public static void lockAll(Collection<String> accountNumbers) {
+        for (int stripe : stripes(accountNumbers)) {
+            locks[stripe].lock();
+        }
+    }
+
+    public static void unlockAll(Collection<String> accountNumbers) {
+        int[] stripes = stripes(accountNumbers);
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    /**
+     * The distinct stripes of the accounts, ascending
+     */
+    private static int[] stripes(Collection<String> accountNumbers) {
+        return accountNumbers.stream().mapToInt(AccountLocks::stripe).distinct().sorted().toArray();
+    }
+
+    private static int stripe(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -14,9 +14,24 @@ public class CheckingAccount extends Account {
         this.employerName = employerName;
         this.employerAddress = employerAddress;
     }
+
+    private CheckingAccount(String accountNumber, String branch, Customer customer, long balanceThebe,
+                            String employerName, String employerAddress) {
+        super(accountNumber, branch, customer, balanceThebe);
+        this.employerName = employerName;
+        this.employerAddress = employerAddress;
+    }
+
+    /**
+     * Restore a checking account from storage with its balance in thebe
+     */
+    public static CheckingAccount withBalanceThebe(String accountNumber, long balanceThebe, String branch,
+                                                   Customer customer, String employerName, String employerAddress) {
+        return new CheckingAccount(accountNumber, branch, customer, balanceThebe, employerName, employerAddress);
+    }
     
     @Override
-    public double calculateInterest() {
+    public long calculateInterestThebe() {
         return 0; // Checking accounts don't earn interest
     }
     
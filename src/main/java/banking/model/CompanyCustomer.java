@@ -20,6 +20,14 @@ public class CompanyCustomer extends Customer {
         return companyName;
     }
     
+    @Override
+    public void copyDetailsFrom(Customer loaded) {
+        super.copyDetailsFrom(loaded);
+        CompanyCustomer company = (CompanyCustomer) loaded;
+        this.companyName = company.companyName;
+        this.companyNumber = company.companyNumber;
+    }
+
     public String getCompanyNumber() {
         return companyNumber;
     }
@@ -42,9 +42,25 @@ public abstract class Customer {
         return email;
     }
     
+    /**
+     * Take the stored details from a freshly loaded copy of this customer (not its accounts)
+     */
+    public void copyDetailsFrom(Customer loaded) {
+        this.address = loaded.address;
+        this.phoneNumber = loaded.phoneNumber;
+        this.email = loaded.email;
+    }
+
     public List<Account> getAccounts() {
         return new ArrayList<>(accounts); // Return copy
     }
+
+    /**
+     * Replace the accounts with those loaded from storage
+     */
+    public void setAccounts(List<Account> accounts) {
+        this.accounts = new ArrayList<>(accounts);
+    }
     
     // Business logic
     public void addAccount(Account account) {
@@ -22,6 +22,15 @@ public class IndividualCustomer extends Customer {
         return firstName + " " + surname;
     }
     
+    @Override
+    public void copyDetailsFrom(Customer loaded) {
+        super.copyDetailsFrom(loaded);
+        IndividualCustomer individual = (IndividualCustomer) loaded;
+        this.firstName = individual.firstName;
+        this.surname = individual.surname;
+        this.nationalId = individual.nationalId;
+    }
+
     public String getFirstName() {
         return firstName;
     }
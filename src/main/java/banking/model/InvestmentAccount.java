@@ -8,7 +8,7 @@ package banking.model;
 public class InvestmentAccount extends Account {
     // ===== CLASS CONSTANTS =====
     private static final double MINIMUM_BALANCE = 500.0;  // Minimum P500 balance
-    private static final double INTEREST_RATE = 0.05;     // 5% monthly interest
+    private static final long INTEREST_RATE_PERCENT = 5;  // 5% monthly interest
 
     /**
      * Constructor - Create a new Investment Account
@@ -26,15 +26,28 @@ public class InvestmentAccount extends Account {
         }
     }
 
+    private InvestmentAccount(String accountNumber, String branch, Customer customer, long balanceThebe) {
+        super(accountNumber, branch, customer, balanceThebe);
+    }
+
+    /**
+     * Restore an investment account from storage with its balance in thebe
+     * (the opening deposit rule does not apply to an account already open)
+     */
+    public static InvestmentAccount withBalanceThebe(String accountNumber, long balanceThebe,
+                                                     String branch, Customer customer) {
+        return new InvestmentAccount(accountNumber, branch, customer, balanceThebe);
+    }
+
     /**
      * Calculate monthly interest for this account
      * "The Investment account which is an account that pays more interest
      *  than the savings account" - 5% monthly
      */
     @Override
-    public double calculateInterest() {
-        // 5% monthly interest
-        return getBalance() * INTEREST_RATE;
+    public long calculateInterestThebe() {
+        // 5% monthly interest, rounded half up to the thebe
+        return Money.applyRate(getBalanceThebe(), INTEREST_RATE_PERCENT, 100);
     }
 
     /**
@@ -0,0 +1,47 @@
+package banking.model;
+
+/**
+ * Fixed-point money helpers. Amounts are held as a long count of thebe (1 pula = 100 thebe),
+ * so balances add and subtract exactly; pula doubles are only used at the UI boundary.
+ */
+public final class Money {
+    public static final long THEBE_PER_PULA = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Convert a pula amount to thebe, rounding half away from zero.
+     * Exact for any amount that came from toPula (up to about 90 trillion pula)
+     */
+    public static long ofPula(double pula) {
+        return pula < 0 ? -Math.round(-pula * THEBE_PER_PULA) : Math.round(pula * THEBE_PER_PULA);
+    }
+
+    public static double toPula(long thebe) {
+        return thebe / (double) THEBE_PER_PULA;
+    }
+
+    /**
+     * Multiply an amount by numerator/denominator, rounding half up (away from zero) to the nearest thebe.
+     * e.g. applyRate(balance, 5, 10_000) is 0.05% of the balance
+     */
+    public static long applyRate(long thebe, long numerator, long denominator) {
+        long product = Math.multiplyExact(Math.abs(thebe), numerator);
+        long rounded = (product + denominator / 2) / denominator;
+        return thebe < 0 ? -rounded : rounded;
+    }
+
+    /**
+     * Format as pula with two decimal places, e.g. 123450 -> "1234.50"
+     */
+    public static String format(long thebe) {
+        StringBuilder text = new StringBuilder(24);
+        long units = Math.abs(thebe);
+        if (thebe < 0) text.append('-');
+        text.append(units / THEBE_PER_PULA).append('.');
+        long fraction = units % THEBE_PER_PULA;
+        if (fraction < 10) text.append('0');
+        return text.append(fraction).toString();
+    }
+}
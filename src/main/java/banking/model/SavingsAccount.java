@@ -45,20 +45,33 @@ public class SavingsAccount extends Account {
         }
     }
 
+    private SavingsAccount(String accountNumber, String branch, Customer customer, long balanceThebe) {
+        super(accountNumber, branch, customer, balanceThebe);
+    }
+
+    /**
+     * Restore a savings account from storage with its balance in thebe
+     * (the opening balance rule does not apply to an account already open)
+     */
+    public static SavingsAccount withBalanceThebe(String accountNumber, long balanceThebe,
+                                                  String branch, Customer customer) {
+        return new SavingsAccount(accountNumber, branch, customer, balanceThebe);
+    }
+
     /**
      * Calculate monthly interest for this account
      *
      * Assignment Requirement:
      * - 0.05% monthly interest for savings accounts
      *
-     * @return Interest amount to be credited
+     * @return Interest amount to be credited, in thebe
      */
     @Override
-    public double calculateInterest() {
-        // Fixed interest rate: 0.05% monthly = 0.0005 as decimal
+    public long calculateInterestThebe() {
+        // Fixed interest rate: 0.05% monthly = 5/10000, rounded half up to the thebe
         // Note: Assignment originally showed different rates for Individual/Company
         // but specifies 0.05% for SavingsAccount in requirements
-        return getBalance() * 0.0005;  // 0.05% = 0.0005
+        return Money.applyRate(getBalanceThebe(), 5, 10_000);
     }
 
     /**
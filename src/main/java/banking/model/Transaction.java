@@ -10,16 +10,24 @@ import java.time.format.DateTimeFormatter;
 public class Transaction {
     private String transactionId;
     private String type; // DEPOSIT, WITHDRAWAL, INTEREST
-    private double amount;
-    private double balanceAfter;
+    private long amount; // in thebe, see Money
+    private long balanceAfter;
     private LocalDateTime timestamp;
     
-    public Transaction(String transactionId, String type, double amount, double balanceAfter) {
+    public Transaction(String transactionId, String type, long amount, long balanceAfter) {
+        this(transactionId, type, amount, balanceAfter, LocalDateTime.now());
+    }
+
+    /**
+     * Restore a transaction with its original timestamp (used when loading from storage)
+     */
+    public Transaction(String transactionId, String type, long amount, long balanceAfter,
+                       LocalDateTime timestamp) {
         this.transactionId = transactionId;
         this.type = type;
         this.amount = amount;
         this.balanceAfter = balanceAfter;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
     
     public String getTransactionId() {
@@ -31,10 +39,18 @@ public class Transaction {
     }
     
     public double getAmount() {
+        return Money.toPula(amount);
+    }
+
+    public long getAmountThebe() {
         return amount;
     }
     
     public double getBalanceAfter() {
+        return Money.toPula(balanceAfter);
+    }
+
+    public long getBalanceAfterThebe() {
         return balanceAfter;
     }
     
@@ -45,7 +61,7 @@ public class Transaction {
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return String.format("%s | %s | Amount: %.2f | Balance: %.2f | %s",
-            transactionId, type, amount, balanceAfter, timestamp.format(formatter));
+        return String.format("%s | %s | Amount: %s | Balance: %s | %s",
+            transactionId, type, Money.format(amount), Money.format(balanceAfter), timestamp.format(formatter));
     }
 }
\ No newline at end of file
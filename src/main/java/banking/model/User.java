@@ -19,6 +19,21 @@ public class User {
         this.customer = customer;
     }
 
+    private User(String username, String role, Customer customer) {
+        this.username = username;
+        this.role = role;
+        this.customer = customer;
+    }
+
+    /**
+     * Restore a user from storage with an already hashed password (no re-hashing)
+     */
+    public static User withHashedPassword(String username, String hashedPassword, String role, Customer customer) {
+        User user = new User(username, role, customer);
+        user.hashedPassword = hashedPassword;
+        return user;
+    }
+
     // Getters
     public String getUsername() { return username; }
     public String getHashedPassword() { return hashedPassword; } // Made public for DAO
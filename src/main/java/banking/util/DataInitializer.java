@@ -17,9 +17,10 @@ public class DataInitializer {
     private UserDAO userDAO;
 
     public DataInitializer() {
-        this.customerDAO = new TextFileCustomerDAO();
-        this.accountDAO = new TextFileAccountDAO();
-        this.userDAO = new TextFileUserDAO();
+        DAORegistry registry = DAORegistry.getInstance();
+        this.customerDAO = registry.getCustomerDAO();
+        this.accountDAO = registry.getAccountDAO();
+        this.userDAO = registry.getUserDAO();
     }
 
     /**
@@ -27,7 +28,7 @@ public class DataInitializer {
      */
     public void initializeData() {
         // Check if data already exists
-        if (new File("data/customers.txt").exists()) {
+        if (new File(DataFiles.path("customers.txt")).exists()) {
             System.out.println("Data files already exist. Skipping initialization.");
             return;
         }
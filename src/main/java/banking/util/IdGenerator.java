@@ -0,0 +1,147 @@
+package banking.util;
+
+import banking.dao.impl.DataFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unique, increasing IDs for transactions and accounts.
+ *
+ * An ID is a long laid out as time << 22 | sequence << 10 | node: milliseconds since 2025-01-01,
+ * a 12 bit per-millisecond sequence and a 10 bit node ID. Each ID is claimed with a compare-and-set,
+ * so generation is lock-free; if the sequence runs out within a millisecond it carries into the
+ * time, so IDs never repeat or go backwards even if the clock does.
+ *
+ * Each node keeps a lease file (data/id-node-N.lease) holding a time its IDs will not reach.
+ * It is extended a few seconds ahead before IDs pass it, and a restarted node starts after it,
+ * so IDs stay unique across restarts. The file is locked while the node runs, so two running
+ * instances never share a node ID: set -Dbanking.node.id, or the first free one is used.
+ */
+public final class IdGenerator {
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long LEASE_MILLIS = 10_000;
+
+    private static IdGenerator instance;
+
+    private final int nodeId;
+    private final FileChannel leaseChannel;
+    private final AtomicLong lastTimeAndSequence; // time << SEQUENCE_BITS | sequence of the last ID
+    private volatile long leasedUntil; // IDs are only handed out for times below this
+
+    private IdGenerator(int nodeId, FileChannel leaseChannel, long leasedUntil) {
+        this.nodeId = nodeId;
+        this.leaseChannel = leaseChannel;
+        this.leasedUntil = leasedUntil;
+        long start = Math.max(currentTime(), leasedUntil);
+        this.lastTimeAndSequence = new AtomicLong(start << SEQUENCE_BITS);
+    }
+
+    public static synchronized IdGenerator getInstance() {
+        if (instance == null) {
+            instance = open(Integer.getInteger("banking.node.id", -1));
+        }
+        return instance;
+    }
+
+    public String nextTransactionId() {
+        return "TXN" + Long.toString(nextId(), 36).toUpperCase();
+    }
+
+    public String nextAccountNumber() {
+        return "ACC" + Long.toString(nextId(), 36).toUpperCase();
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastTimeAndSequence.get();
+            long now = currentTime() << SEQUENCE_BITS;
+            long next = now > last ? now : last + 1;
+
+            if ((next >>> SEQUENCE_BITS) >= leasedUntil) {
+                extendLease(next >>> SEQUENCE_BITS);
+                continue;
+            }
+            if (lastTimeAndSequence.compareAndSet(last, next)) {
+                return next << NODE_BITS | nodeId;
+            }
+        }
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Persist a new lease before any ID reaches the current one (about once every LEASE_MILLIS)
+     */
+    private synchronized void extendLease(long time) {
+        if (time < leasedUntil) return; // Another thread got here first
+
+        long until = time + LEASE_MILLIS;
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, until);
+            leaseChannel.write(buffer, 0);
+            leaseChannel.force(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot persist ID lease for node " + nodeId, e);
+        }
+        leasedUntil = until;
+    }
+
+    private static IdGenerator open(int requestedNode) {
+        DataFiles.createDataDirectory();
+        int first = requestedNode >= 0 ? requestedNode : 0;
+        int last = requestedNode >= 0 ? requestedNode : MAX_NODE_ID;
+        if (requestedNode > MAX_NODE_ID) {
+            throw new IllegalArgumentException("banking.node.id must be 0-" + MAX_NODE_ID);
+        }
+
+        for (int node = first; node <= last; node++) {
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(Path.of(DataFiles.path("id-node-" + node + ".lease")),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock == null) {
+                    channel.close();
+                    continue; // Node in use by another running instance
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+                long leasedUntil = channel.read(buffer, 0) == Long.BYTES ? buffer.getLong(0) : 0;
+                return new IdGenerator(node, channel, leasedUntil);
+            } catch (OverlappingFileLockException e) {
+                closeQuietly(channel); // Already held by this process
+            } catch (IOException e) {
+                closeQuietly(channel);
+                System.err.println("Error opening ID lease for node " + node + ": " + e.getMessage());
+            }
+        }
+        throw new IllegalStateException(requestedNode >= 0
+                ? "Node ID " + requestedNode + " is in use by another instance"
+                : "No free node ID for the ID generator");
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static long currentTime() {
+        return System.currentTimeMillis() - EPOCH;
+    }
+}
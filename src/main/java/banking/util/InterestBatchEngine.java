@@ -0,0 +1,174 @@
+package banking.util;
+
+import banking.dao.AccountDAO;
+import banking.dao.ConcurrentUpdateException;
+import banking.model.Account;
+import banking.model.Money;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Applies monthly interest to many accounts at once.
+ * Interest is computed and posted in parallel, splitting the accounts into partitions
+ * on a fork-join pool, and every credited account is then persisted in one batch update.
+ * Each account is credited at most once per period (see Account.creditInterest(String)).
+ * If another instance saved some of the accounts first, the commit is refused; the credited
+ * accounts are then reloaded and credited again, which skips any the other instance already paid.
+ * If the commit fails for good, the credited accounts are reloaded, so none is left paid in memory
+ * but not on disk, and run throws.
+ */
+public class InterestBatchEngine {
+    private static final int PARTITION_SIZE = 2048;
+    private static final int MAX_COMMIT_ATTEMPTS = 5;
+
+    private final AccountDAO accountDAO;
+    private final ForkJoinPool pool;
+
+    public InterestBatchEngine(AccountDAO accountDAO) {
+        this(accountDAO, ForkJoinPool.commonPool());
+    }
+
+    public InterestBatchEngine(AccountDAO accountDAO, ForkJoinPool pool) {
+        this.accountDAO = accountDAO;
+        this.pool = pool;
+    }
+
+    /**
+     * Credit a period's interest to every eligible account and save them all with a single commit
+     * @throws UncheckedIOException if the commit could not be written
+     * @throws ConcurrentUpdateException if other instances kept saving the accounts first
+     */
+    public Result run(List<Account> accounts, String period) {
+        long start = System.nanoTime();
+        Partition all = pool.invoke(new InterestTask(accounts, period, 0, accounts.size()));
+        long computed = System.nanoTime();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                accountDAO.updateAccounts(all.credited);
+                break;
+            } catch (ConcurrentUpdateException e) {
+                accountDAO.refreshAccounts(all.credited);
+                if (attempt == MAX_COMMIT_ATTEMPTS) throw e;
+                all = pool.invoke(new InterestTask(all.credited, period, 0, all.credited.size()));
+            } catch (UncheckedIOException e) {
+                accountDAO.refreshAccounts(all.credited); // Nothing was saved: undo the credits
+                throw e;
+            }
+        }
+        long committed = System.nanoTime();
+
+        return new Result(accounts.size(), all.credited.size(), all.totalInterest,
+                computed - start, committed - computed);
+    }
+
+    /**
+     * Accounts credited within one slice of the input, in input order
+     */
+    private static class Partition {
+        private final List<Account> credited;
+        private long totalInterest; // thebe
+
+        private Partition(int capacity) {
+            this.credited = new ArrayList<>(capacity);
+        }
+    }
+
+    private static class InterestTask extends RecursiveTask<Partition> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Account> accounts;
+        private final String period;
+        private final int from;
+        private final int to;
+
+        private InterestTask(List<Account> accounts, String period, int from, int to) {
+            this.accounts = accounts;
+            this.period = period;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partition compute() {
+            if (to - from <= PARTITION_SIZE) {
+                Partition partition = new Partition(to - from);
+                for (int i = from; i < to; i++) {
+                    Account account = accounts.get(i);
+                    long interest = account.creditInterest(period);
+                    if (interest > 0) {
+                        partition.credited.add(account);
+                        partition.totalInterest += interest;
+                    }
+                }
+                return partition;
+            }
+
+            int middle = (from + to) >>> 1;
+            InterestTask left = new InterestTask(accounts, period, from, middle);
+            left.fork();
+            Partition right = new InterestTask(accounts, period, middle, to).compute();
+            Partition merged = left.join();
+            merged.credited.addAll(right.credited);
+            merged.totalInterest += right.totalInterest;
+            return merged;
+        }
+    }
+
+    /**
+     * Outcome and timing of one interest run
+     */
+    public static class Result {
+        private final int accountsScanned;
+        private final int accountsCredited;
+        private final long totalInterest; // thebe
+        private final long computeNanos;
+        private final long commitNanos;
+
+        Result(int accountsScanned, int accountsCredited, long totalInterest,
+               long computeNanos, long commitNanos) {
+            this.accountsScanned = accountsScanned;
+            this.accountsCredited = accountsCredited;
+            this.totalInterest = totalInterest;
+            this.computeNanos = computeNanos;
+            this.commitNanos = commitNanos;
+        }
+
+        public int getAccountsScanned() { return accountsScanned; }
+        public int getAccountsCredited() { return accountsCredited; }
+        public double getTotalInterest() { return Money.toPula(totalInterest); }
+
+        /**
+         * This run's figures added to another's, e.g. to total the partitions of a month-end job
+         */
+        public Result plus(Result other) {
+            return new Result(accountsScanned + other.accountsScanned, accountsCredited + other.accountsCredited,
+                    totalInterest + other.totalInterest, computeNanos + other.computeNanos,
+                    commitNanos + other.commitNanos);
+        }
+
+        public double getElapsedMillis() {
+            return (computeNanos + commitNanos) / 1_000_000.0;
+        }
+
+        /**
+         * Accounts processed per second over the whole run, compute and commit
+         */
+        public double getAccountsPerSecond() {
+            long nanos = computeNanos + commitNanos;
+            return nanos > 0 ? accountsScanned * 1_000_000_000.0 / nanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Interest run: %d of %d accounts credited, P%s total, " +
+                            "%.1f ms (compute %.1f ms, commit %.1f ms), %.0f accounts/s",
+                    accountsCredited, accountsScanned, Money.format(totalInterest), getElapsedMillis(),
+                    computeNanos / 1_000_000.0, commitNanos / 1_000_000.0, getAccountsPerSecond());
+        }
+    }
+}
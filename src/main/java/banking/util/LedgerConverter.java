@@ -0,0 +1,44 @@
+package banking.util;
+
+import banking.dao.impl.DataFiles;
+import banking.dao.impl.MappedTransactionDAO;
+import banking.dao.impl.TextFileTransactionDAO;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts the text transactions ledger (transactions.txt) into the
+ * memory-mapped binary ledger (transactions.bin), keeping ledger order
+ */
+public class LedgerConverter {
+
+    public static void main(String[] args) throws IOException {
+        String target = args.length > 0 ? args[0] : DataFiles.path("transactions.bin");
+        int converted = convert(new TextFileTransactionDAO(), target);
+        if (converted >= 0) {
+            System.out.println("Converted " + converted + " transactions to " + target);
+        }
+    }
+
+    /**
+     * Copy every transaction from the text ledger into a new binary ledger
+     * @return number of transactions converted, or -1 if the target already exists
+     */
+    public static int convert(TextFileTransactionDAO source, String targetFile) throws IOException {
+        File target = new File(targetFile);
+        if (target.exists() && target.length() > 0) {
+            System.err.println("Binary ledger already exists: " + targetFile);
+            return -1;
+        }
+
+        MappedTransactionDAO binaryLedger = new MappedTransactionDAO(targetFile);
+        int[] converted = {0};
+        source.forEachTransaction((accountNumber, transaction) -> {
+            binaryLedger.saveTransaction(transaction, accountNumber);
+            converted[0]++;
+        });
+        binaryLedger.close();
+        return converted[0];
+    }
+}
@@ -0,0 +1,131 @@
+package banking.util;
+
+import banking.dao.AccountDAO;
+import banking.dao.impl.DataFiles;
+import banking.dao.impl.RecordReader;
+import banking.model.Account;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Month-end interest run that can be resumed after a crash.
+ * The run ID is the period ("2025-10"). Accounts are processed in account number order,
+ * one partition at a time; each partition is committed as one batch update and then
+ * recorded in the run's checkpoint file (data/interest-<period>.checkpoint), so a restarted
+ * run continues after the last committed partition. A partition whose commit fails stops the
+ * run with the exception before its checkpoint is written, and its accounts are reloaded
+ * (see InterestBatchEngine.run), so running again retries it.
+ * Every account also records the period it was last paid for, so an account committed
+ * just before a crash (ahead of its checkpoint) is never credited twice.
+ */
+public class MonthEndInterestJob {
+    private static final int PARTITION_SIZE = 10_000;
+    private static final String COMPLETE = "COMPLETE";
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+
+    private final AccountDAO accountDAO;
+    private final InterestBatchEngine engine;
+    private final String period;
+    private final String checkpointFile;
+
+    public MonthEndInterestJob(AccountDAO accountDAO) {
+        this(accountDAO, YearMonth.now().toString());
+    }
+
+    public MonthEndInterestJob(AccountDAO accountDAO, String period) {
+        this.accountDAO = accountDAO;
+        this.engine = new InterestBatchEngine(accountDAO);
+        this.period = period;
+        this.checkpointFile = DataFiles.path("interest-" + period + ".checkpoint");
+    }
+
+    public String getRunId() {
+        return period;
+    }
+
+    /**
+     * Run (or resume) the job over every account
+     */
+    public InterestBatchEngine.Result run() {
+        return run(accountDAO.findAllAccounts());
+    }
+
+    /**
+     * Run (or resume) the job over the given accounts
+     * @throws RuntimeException from InterestBatchEngine.run if a partition could not be committed;
+     *         the checkpoint stays at the last committed partition
+     */
+    public InterestBatchEngine.Result run(List<Account> accounts) {
+        InterestBatchEngine.Result total = new InterestBatchEngine.Result(0, 0, 0, 0, 0);
+        Checkpoint checkpoint = readCheckpoint();
+        if (checkpoint != null && COMPLETE.equals(checkpoint.status)) {
+            System.out.println("Interest run " + period + " already complete");
+            return total;
+        }
+
+        List<Account> pending = new ArrayList<>();
+        for (Account account : accounts) {
+            if (checkpoint == null || account.getAccountNumber().compareTo(checkpoint.lastAccountNumber) > 0) {
+                pending.add(account);
+            }
+        }
+        pending.sort(Comparator.comparing(Account::getAccountNumber));
+        if (checkpoint != null) {
+            System.out.println("Resuming interest run " + period + " after account " + checkpoint.lastAccountNumber);
+        }
+
+        for (int from = 0; from < pending.size(); from += PARTITION_SIZE) {
+            List<Account> partition = pending.subList(from, Math.min(from + PARTITION_SIZE, pending.size()));
+            total = total.plus(engine.run(partition, period));
+            writeCheckpoint(IN_PROGRESS, partition.get(partition.size() - 1).getAccountNumber());
+        }
+        writeCheckpoint(COMPLETE, pending.isEmpty() ? "" : pending.get(pending.size() - 1).getAccountNumber());
+        return total;
+    }
+
+    private Checkpoint readCheckpoint() {
+        if (!new File(checkpointFile).exists()) return null;
+
+        try (BufferedReader reader = DataFiles.openReader(checkpointFile)) {
+            String line = reader.readLine();
+            if (line == null) return null;
+
+            RecordReader record = new RecordReader().reset(line);
+            if (record.fieldCount() < 3 || !record.nextString().equals(period)) return null;
+            return new Checkpoint(record.nextString(), record.nextString());
+        } catch (IOException e) {
+            System.err.println("Error reading interest checkpoint: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replace the checkpoint with a temporary file and an atomic rename, so it is never half written
+     */
+    private void writeCheckpoint(String status, String lastAccountNumber) {
+        try {
+            DataFiles.replace(checkpointFile, writer -> {
+                writer.write(period + "|" + status + "|" + lastAccountNumber);
+                writer.newLine();
+            });
+        } catch (IOException e) {
+            System.err.println("Error writing interest checkpoint: " + e.getMessage());
+        }
+    }
+
+    private static class Checkpoint {
+        private final String status;
+        private final String lastAccountNumber;
+
+        private Checkpoint(String status, String lastAccountNumber) {
+            this.status = status;
+            this.lastAccountNumber = lastAccountNumber;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package banking.util;
+
+import banking.dao.AccountDAO;
+import banking.dao.ConcurrentUpdateException;
+import banking.model.Account;
+import banking.model.AccountLocks;
+import banking.model.Money;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Posts deposits, withdrawals and transfers safely from any number of threads.
+ * Each posting holds the account's striped lock (see AccountLocks) from the balance change
+ * until the account is persisted, so the saved record and its transactions always match.
+ * A transfer locks both accounts in a fixed order and is saved as one batch update,
+ * so one leg is never applied or saved without the other.
+ * If another instance saved one of the accounts first, the save is refused (see
+ * ConcurrentUpdateException); the accounts are then reloaded and the posting redone.
+ * If the save fails, the accounts are reloaded too, so no leg stays applied in memory
+ * without being saved, and the posting reports failure.
+ */
+public class PostingEngine {
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final AccountDAO accountDAO;
+
+    public PostingEngine(AccountDAO accountDAO) {
+        this.accountDAO = accountDAO;
+    }
+
+    public boolean deposit(Account account, double amount) {
+        ReentrantLock lock = AccountLocks.lockFor(account.getAccountNumber());
+        lock.lock();
+        try {
+            return post(List.of(account), () -> account.deposit(amount));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean withdraw(Account account, double amount) {
+        ReentrantLock lock = AccountLocks.lockFor(account.getAccountNumber());
+        lock.lock();
+        try {
+            return post(List.of(account), () -> account.withdraw(amount));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move money between two accounts: both legs are applied and saved together, or neither is
+     */
+    public boolean transfer(Account source, Account target, double amount) {
+        if (Money.ofPula(amount) <= 0 || source.getAccountNumber().equals(target.getAccountNumber())) {
+            return false;
+        }
+
+        AccountLocks.lockBoth(source.getAccountNumber(), target.getAccountNumber());
+        try {
+            // The withdrawal is the only leg that can be refused; a positive deposit always succeeds
+            return post(List.of(source, target), () -> {
+                if (!source.withdraw(amount)) return false;
+                target.deposit(amount);
+                return true;
+            });
+        } finally {
+            AccountLocks.unlockBoth(source.getAccountNumber(), target.getAccountNumber());
+        }
+    }
+
+    /**
+     * Apply a posting and save the accounts, reloading them and redoing the posting if another
+     * instance saved them first. The caller holds the accounts' locks
+     */
+    private boolean post(List<Account> accounts, BooleanSupplier posting) {
+        for (int attempt = 1; ; attempt++) {
+            if (!posting.getAsBoolean()) return false;
+            try {
+                if (accounts.size() == 1) {
+                    accountDAO.updateAccount(accounts.get(0));
+                } else {
+                    accountDAO.updateAccounts(accounts);
+                }
+                return true;
+            } catch (ConcurrentUpdateException e) {
+                accountDAO.refreshAccounts(accounts); // Also drops this attempt's changes
+                if (attempt == MAX_ATTEMPTS) {
+                    System.err.println("Posting abandoned after " + attempt + " attempts: " + e.getMessage());
+                    return false;
+                }
+            } catch (UncheckedIOException e) {
+                accountDAO.refreshAccounts(accounts); // Nothing was saved, so roll back every leg
+                System.err.println("Posting not saved: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -9,6 +9,8 @@ import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
 public class AccountDetailsView {
+    private static final int RECENT_TRANSACTION_LIMIT = 50;
+
     private Stage stage;
     private AccountDetailsController controller;
 
@@ -74,7 +76,7 @@ public class AccountDetailsView {
         historyLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
 
         ListView<String> transactionList = new ListView<>();
-        for (Transaction transaction : controller.getAccount().getTransactions()) {
+        for (Transaction transaction : controller.getRecentTransactions(0, RECENT_TRANSACTION_LIMIT)) {
             transactionList.getItems().add(transaction.toString());
         }
 
@@ -1,5 +1,8 @@
 package banking.view;
 
+import banking.dao.impl.DAORegistry;
+import banking.model.Account;
+import banking.util.IdGenerator;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -9,10 +12,17 @@ import javafx.stage.Stage;
 public class BankingApplication extends Application {
     @Override
     public void start(Stage primaryStage) {
-        LoginView loginView = new LoginView(primaryStage);
+        Account.setTransactionIdSupplier(IdGenerator.getInstance()::nextTransactionId); // Unique across restarts and instances
+        LoginView loginView = new LoginView(primaryStage); // Creates sample data on first run
+        DAORegistry.getInstance().warmUp();
         loginView.show();
     }
 
+    @Override
+    public void stop() {
+        DAORegistry.getInstance().shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -3,6 +3,7 @@ package banking.view;
 import banking.controller.CustomerDashboardController;
 import banking.model.Account;
 import banking.model.Customer;
+import banking.model.Transaction;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -10,6 +11,8 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 /**
  * CustomerDashboardView - Boundary Class
  * This view represents the customer's main dashboard interface.
@@ -458,15 +461,16 @@ public class CustomerDashboardView {
             accountLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
             transactionsList.getChildren().add(accountLabel);
 
-            // Display transactions for this account
-            if (account.getTransactions().isEmpty()) {
+            // Display transactions for this account (history is loaded on first access)
+            List<Transaction> transactions = account.getTransactions();
+            if (transactions.isEmpty()) {
                 Label noTransactions = new Label("  No transactions yet");
                 noTransactions.setStyle("-fx-text-fill: #7f8c8d;");
                 transactionsList.getChildren().add(noTransactions);
             } else {
                 // List each transaction
-                for (int i = 0; i < account.getTransactions().size(); i++) {
-                    Label transactionLabel = new Label("  " + account.getTransactions().get(i).toString());
+                for (Transaction transaction : transactions) {
+                    Label transactionLabel = new Label("  " + transaction.toString());
                     transactionLabel.setStyle("-fx-font-size: 12px;");
                     transactionsList.getChildren().add(transactionLabel);
                 }
@@ -3,7 +3,7 @@ package banking.view;
 import banking.controller.CustomerDashboardController;
 import banking.controller.TellerDashboardController;
 import banking.dao.UserDAO;
-import banking.dao.impl.TextFileUserDAO;
+import banking.dao.impl.DAORegistry;
 import banking.model.User;
 import banking.util.DataInitializer;
 import javafx.animation.PauseTransition;
@@ -26,7 +26,7 @@ public class LoginView {
     public LoginView(Stage stage) {
         this.stage = stage;
         this.stage.setTitle("Banking System - Login");
-        this.userDAO = new TextFileUserDAO();
+        this.userDAO = DAORegistry.getInstance().getUserDAO();
 
         // Initialize sample data if needed
         DataInitializer initializer = new DataInitializer();
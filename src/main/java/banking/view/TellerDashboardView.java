@@ -1,8 +1,11 @@
 package banking.view;
 
-import banking.dao.impl.TextFileUserDAO;
+import banking.dao.impl.DAORegistry;
 import banking.controller.TellerDashboardController;
 import banking.model.*;
+import banking.util.IdGenerator;
+import banking.util.InterestBatchEngine;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -10,6 +13,8 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 /**
  * TellerDashboardView - Boundary Class
  * This view represents the bank teller's main dashboard interface.
@@ -18,6 +23,8 @@ import javafx.stage.Stage;
  */
 public class TellerDashboardView {
     // ===== ATTRIBUTES =====
+    private static final int REPORT_TRANSACTIONS_PER_ACCOUNT = 20; // Newest transactions listed per account
+
     private Stage stage;                              // JavaFX stage for displaying the view
     private TellerDashboardController controller;     // Controller for handling teller actions
 
@@ -363,9 +370,31 @@ public class TellerDashboardView {
         Button interestBtn = new Button("Apply Monthly Interest to All Accounts");
         interestBtn.setStyle("-fx-background-color: #9b59b6; -fx-text-fill: white;");
         interestBtn.setOnAction(e -> {
-            // ACTION: Apply interest to all eligible accounts
-            controller.applyInterestToAllAccounts();
-            showAlert("Success", "Monthly interest applied to all eligible accounts!");
+            // ACTION: Apply interest to all eligible accounts, off the JavaFX thread so the UI stays responsive
+            List<Account> accounts = controller.getAllAccounts();
+            Task<InterestBatchEngine.Result> interestTask = new Task<>() {
+                @Override
+                protected InterestBatchEngine.Result call() {
+                    return controller.applyInterest(accounts);
+                }
+            };
+            // Task handlers run back on the JavaFX thread
+            interestTask.setOnSucceeded(done -> {
+                interestBtn.setDisable(false);
+                InterestBatchEngine.Result result = interestTask.getValue();
+                showAlert("Success", String.format("Monthly interest applied to %d eligible accounts (P%.2f total).",
+                        result.getAccountsCredited(), result.getTotalInterest()));
+            });
+            interestTask.setOnFailed(failed -> {
+                interestBtn.setDisable(false);
+                showAlert("Error", "Monthly interest run failed: " + interestTask.getException().getMessage()
+                        + "\nRun it again to resume; accounts already paid are skipped.");
+            });
+
+            interestBtn.setDisable(true);
+            Thread worker = new Thread(interestTask, "month-end-interest");
+            worker.setDaemon(true);
+            worker.start();
         });
 
         // Customer Report button
@@ -401,7 +430,7 @@ public class TellerDashboardView {
     private Account createAccount(String accountType, double initialBalance, Customer customer,
                                   String employerName, String employerAddress) {
         // Generate unique account number
-        String accountNumber = "ACC" + (System.currentTimeMillis() % 10000);
+        String accountNumber = IdGenerator.getInstance().nextAccountNumber();
 
         // Create appropriate account type
         switch (accountType) {
@@ -649,8 +678,7 @@ public class TellerDashboardView {
 
                         // Then create user account with provided credentials
                         User user = new User(username, password, "CUSTOMER", newCustomer);
-                        TextFileUserDAO userDAO = new TextFileUserDAO();
-                        userDAO.saveUser(user);
+                        DAORegistry.getInstance().getUserDAO().saveUser(user);
 
                         // Show success message
                         showAlert("Success",
@@ -714,7 +742,7 @@ public class TellerDashboardView {
 
     /**
      * Generate a transaction report
-     * Shows all transactions for all accounts
+     * Shows the transaction count and newest transactions for all accounts
      */
     private void generateTransactionReport() {
         StringBuilder report = new StringBuilder();
@@ -728,12 +756,18 @@ public class TellerDashboardView {
                 report.append("  Account: ").append(account.getAccountNumber())
                         .append(" (").append(account.getClass().getSimpleName()).append(")\n");
                 report.append("  Balance: P").append(String.format("%.2f", account.getBalance())).append("\n");
-                report.append("  Transactions: ").append(account.getTransactions().size()).append("\n");
+                long transactionCount = controller.countTransactions(account.getAccountNumber());
+                report.append("  Transactions: ").append(transactionCount).append("\n");
 
-                // List all transactions
-                for (Transaction transaction : account.getTransactions()) {
+                // List the newest transactions, paging from the ledger instead of loading full histories
+                for (Transaction transaction : controller.getTransactionHistory(
+                        account.getAccountNumber(), 0, REPORT_TRANSACTIONS_PER_ACCOUNT)) {
                     report.append("    - ").append(transaction.toString()).append("\n");
                 }
+                if (transactionCount > REPORT_TRANSACTIONS_PER_ACCOUNT) {
+                    report.append("    ... ").append(transactionCount - REPORT_TRANSACTIONS_PER_ACCOUNT)
+                            .append(" older transactions\n");
+                }
                 report.append("\n");
             }
             report.append("------------------------\n");
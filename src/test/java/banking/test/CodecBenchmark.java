@@ -0,0 +1,139 @@
+package banking.test;
+
+import banking.dao.impl.RecordReader;
+import banking.dao.impl.RecordWriter;
+import banking.model.Money;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the RecordReader/RecordWriter codec with the split/String.format code it replaced
+ * on generated transaction lines, and checks both produce identical text.
+ * Usage: CodecBenchmark [lines] [rounds]
+ */
+public class CodecBenchmark {
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static long sink; // Keeps results live so the JIT cannot drop the work
+
+    public static void main(String[] args) {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.println("=== RECORD CODEC BENCHMARK ===\n");
+        List<String> lines = generateLines(lineCount);
+
+        System.out.println("--- Compatibility ---");
+        int mismatches = 0;
+        RecordReader reader = new RecordReader();
+        RecordWriter writer = new RecordWriter();
+        for (String line : lines) {
+            String[] parts = line.split("\\|");
+            reader.reset(line);
+            String id = reader.nextString();
+            String account = reader.nextString();
+            String type = reader.nextString();
+            long amount = reader.nextMoney();
+            long balance = reader.nextMoney();
+            LocalDateTime timestamp = reader.nextTimestamp();
+
+            boolean parsedSame = id.equals(parts[0]) && account.equals(parts[1]) && type.equals(parts[2])
+                    && amount == Money.ofPula(Double.parseDouble(parts[3]))
+                    && balance == Money.ofPula(Double.parseDouble(parts[4]))
+                    && timestamp.equals(LocalDateTime.parse(parts[5], formatter));
+            String written = writer.begin().field(id).field(account).field(type)
+                    .money(amount).money(balance).timestamp(timestamp).toString();
+            if (!parsedSame || !written.equals(formatWithString(parts[0], parts[1], parts[2],
+                    Money.toPula(amount), Money.toPula(balance), timestamp))) {
+                mismatches++;
+            }
+        }
+        System.out.println(mismatches == 0 ? "PASS: identical parse and output for " + lineCount + " lines"
+                : "FAIL: " + mismatches + " mismatched lines");
+
+        System.out.println("\n--- Parse (ns per line) ---");
+        for (int round = 0; round < rounds; round++) {
+            long splitTime = time(() -> parseWithSplit(lines));
+            long codecTime = time(() -> parseWithCodec(lines));
+            System.out.printf("round %2d: split %6.1f   codec %6.1f%n", round,
+                    (double) splitTime / lineCount, (double) codecTime / lineCount);
+        }
+
+        System.out.println("\n--- Format (ns per line) ---");
+        for (int round = 0; round < rounds; round++) {
+            long formatTime = time(() -> formatWithString(lines));
+            long codecTime = time(() -> formatWithCodec(lines));
+            System.out.printf("round %2d: String.format %6.1f   codec %6.1f%n", round,
+                    (double) formatTime / lineCount, (double) codecTime / lineCount);
+        }
+
+        System.out.println("\n=== BENCHMARK COMPLETE === (" + sink + ")");
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> generateLines(int count) {
+        Random random = new Random(42);
+        String[] types = {"DEPOSIT", "WITHDRAWAL", "INTEREST"};
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double amount = random.nextInt(10_000_000) / 100.0;
+            double balance = random.nextInt(100_000_000) / 100.0;
+            lines.add(formatWithString("TXN" + (1_700_000_000_000L + i), String.format("ACC%03d", random.nextInt(1000)),
+                    types[random.nextInt(types.length)], amount, balance, start.plusSeconds(random.nextInt(31_536_000))));
+        }
+        return lines;
+    }
+
+    private static void parseWithSplit(List<String> lines) {
+        for (String line : lines) {
+            String[] parts = line.split("\\|");
+            sink += parts[0].length() + parts[1].length() + parts[2].length();
+            sink += Money.ofPula(Double.parseDouble(parts[3])) + Money.ofPula(Double.parseDouble(parts[4]));
+            sink += LocalDateTime.parse(parts[5], formatter).getSecond();
+        }
+    }
+
+    private static void parseWithCodec(List<String> lines) {
+        RecordReader reader = new RecordReader();
+        for (String line : lines) {
+            reader.reset(line);
+            sink += reader.nextString().length() + reader.nextString().length() + reader.nextString().length();
+            sink += reader.nextMoney() + reader.nextMoney();
+            sink += reader.nextTimestamp().getSecond();
+        }
+    }
+
+    private static void formatWithString(List<String> lines) {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 10, 1, 9, 30, 5);
+        for (int i = 0; i < lines.size(); i++) {
+            sink += formatWithString("TXN" + i, "ACC001", "DEPOSIT", i / 100.0, i / 10.0, timestamp).length();
+        }
+    }
+
+    private static void formatWithCodec(List<String> lines) {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 10, 1, 9, 30, 5);
+        RecordWriter writer = new RecordWriter();
+        for (int i = 0; i < lines.size(); i++) {
+            sink += writer.begin().field("TXN" + i).field("ACC001").field("DEPOSIT")
+                    .money((long) i).money(i * 10L).timestamp(timestamp).toString().length();
+        }
+    }
+
+    private static String formatWithString(String id, String account, String type, double amount,
+                                           double balance, LocalDateTime timestamp) {
+        return String.format("%s|%s|%s|%.2f|%.2f|%s", id, account, type, amount, balance, timestamp.format(formatter));
+    }
+
+    private static long time(Runnable work) {
+        long start = System.nanoTime();
+        work.run();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,86 @@
+package banking.test;
+
+import banking.dao.impl.DataFiles;
+import banking.dao.impl.Durability;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measures the cost of each durability level on the DataFiles append and replace paths:
+ * single-record commits, 100-record batch commits and whole-table rewrites.
+ * PER_BATCH commits return before their sync, which the background batch syncer does.
+ * Works in a temporary directory, so the data directory is never touched.
+ * Usage: DurabilityBenchmark [commits]
+ */
+public class DurabilityBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final int TABLE_SIZE = 1_000;
+    private static final String RECORD = "ACC0000000001|CUST001|SavingsAccount|12345.67|Gaborone|||2025-10";
+
+    public static void main(String[] args) throws IOException {
+        int commits = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Path directory = Files.createTempDirectory("durability-benchmark");
+        String journal = directory.resolve("journal.txt").toString();
+        String table = directory.resolve("table.txt").toString();
+
+        System.out.println("=== DURABILITY BENCHMARK === (" + commits + " commits per test, " + directory + ")\n");
+        System.out.printf("%-13s %18s %18s %18s%n", "level", "single (us)", "batch of " + BATCH_SIZE + " (us)",
+                "rewrite " + TABLE_SIZE + " (us)");
+
+        boolean intact = true;
+        for (Durability durability : Durability.values()) {
+            Durability.setCurrent(durability);
+            Files.deleteIfExists(Path.of(journal));
+
+            long single = time(commits, () -> DataFiles.append(journal, writer -> {
+                writer.write(RECORD);
+                writer.newLine();
+            }));
+            long batch = time(commits, () -> DataFiles.append(journal, writer -> {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    writer.write(RECORD);
+                    writer.newLine();
+                }
+            }));
+            long rewrite = time(commits, () -> DataFiles.replace(table, writer -> {
+                for (int i = 0; i < TABLE_SIZE; i++) {
+                    writer.write(RECORD);
+                    writer.newLine();
+                }
+            }));
+            System.out.printf("%-13s %18.1f %18.1f %18.1f%n", durability,
+                    single / 1000.0 / commits, batch / 1000.0 / commits, rewrite / 1000.0 / commits);
+
+            List<String> lines = Files.readAllLines(Path.of(table));
+            intact &= lines.size() == TABLE_SIZE && !new File(table + ".tmp").exists()
+                    && Files.readAllLines(Path.of(journal)).size() == commits * (1 + BATCH_SIZE);
+        }
+
+        System.out.println(intact ? "\nPASS: every file complete, no temporary files left"
+                : "\nFAIL: a file is incomplete or a temporary file was left behind");
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+        System.out.println("\n=== BENCHMARK COMPLETE ===");
+        if (!intact) {
+            System.exit(1);
+        }
+    }
+
+    private static long time(int commits, Commit commit) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < commits; i++) {
+            commit.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private interface Commit {
+        void run() throws IOException;
+    }
+}
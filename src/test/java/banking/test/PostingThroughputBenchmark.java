@@ -0,0 +1,118 @@
+package banking.test;
+
+import banking.dao.impl.Durability;
+import banking.dao.impl.TextFileAccountDAO;
+import banking.dao.impl.TextFileTransactionDAO;
+import banking.model.Account;
+import banking.model.Money;
+import banking.model.Transaction;
+import banking.util.PostingEngine;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures end-to-end posting throughput: many threads posting deposits, withdrawals and
+ * transfers through PostingEngine and TextFileAccountDAO (journal commit plus ledger append),
+ * at each durability level. Afterwards every account's ledger must add up to its saved balance.
+ * Works in a temporary directory unless -Dbanking.data.dir is set, so the data directory is never touched.
+ * Usage: PostingThroughputBenchmark [threads] [postings per thread] [accounts]
+ */
+public class PostingThroughputBenchmark {
+    private static final long OPENING_BALANCE = Money.ofPula(1_000_000);
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int postings = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int accountCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        if (System.getProperty("banking.data.dir") == null) {
+            System.setProperty("banking.data.dir", Files.createTempDirectory("posting-benchmark").toString());
+        }
+        Path dir = Path.of(System.getProperty("banking.data.dir"));
+        System.out.println("=== POSTING THROUGHPUT BENCHMARK === (" + threads + " threads x " + postings
+                + " postings, " + accountCount + " accounts, " + dir + ")\n");
+
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("customers.txt"), List.of(
+                "CUST001|COMPANY|TechSolutions Ltd|BW000123456|Plot 321, Gaborone CBD|3901234|info@techsolutions.bw"));
+        List<String> accountLines = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) {
+            accountLines.add(String.format("ACC%06d|CUST001|CheckingAccount|%s|Main Branch|TechSolutions Ltd|Plot 321",
+                    i, Money.format(OPENING_BALANCE)));
+        }
+        Files.write(dir.resolve("accounts.txt"), accountLines);
+
+        TextFileAccountDAO accountDAO = new TextFileAccountDAO();
+        List<Account> accounts = accountDAO.findAllAccounts();
+        PostingEngine engine = new PostingEngine(accountDAO);
+        PrintStream console = System.out;
+
+        System.out.printf("%-13s %14s %12s%n", "level", "postings/s", "elapsed ms");
+        for (Durability durability : Durability.values()) {
+            Durability.setCurrent(durability);
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Account prints every posting
+            AtomicInteger succeeded = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                long seed = durability.ordinal() * 1_000L + t;
+                workers.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < postings; i++) {
+                        Account account = accounts.get(random.nextInt(accounts.size()));
+                        double amount = 1 + random.nextInt(100);
+                        boolean posted;
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                posted = engine.deposit(account, amount);
+                                break;
+                            case 1:
+                                posted = engine.withdraw(account, amount);
+                                break;
+                            default:
+                                posted = engine.transfer(account, accounts.get(random.nextInt(accounts.size())), amount);
+                                break;
+                        }
+                        if (posted) succeeded.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+            System.setOut(console);
+            System.out.printf("%-13s %14.0f %12.1f%n", durability,
+                    succeeded.get() * 1_000_000_000.0 / elapsed, elapsed / 1_000_000.0);
+        }
+
+        // A fresh DAO reads the result back from the files
+        TextFileTransactionDAO transactionDAO = new TextFileTransactionDAO();
+        boolean ledgerMatches = true;
+        for (Account account : new TextFileAccountDAO().findAllAccounts()) {
+            long ledgerBalance = OPENING_BALANCE;
+            for (Transaction transaction : transactionDAO.findTransactionsByAccount(account.getAccountNumber())) {
+                ledgerBalance += transaction.getType().equals("WITHDRAWAL")
+                        ? -transaction.getAmountThebe() : transaction.getAmountThebe();
+            }
+            ledgerMatches &= ledgerBalance == account.getBalanceThebe();
+        }
+        transactionDAO.close();
+
+        System.out.println(ledgerMatches ? "\nPASS: every account's ledger adds up to its saved balance"
+                : "\nFAIL: a ledger does not add up to its account's saved balance");
+        System.out.println("\n=== BENCHMARK COMPLETE ===");
+        System.exit(ledgerMatches ? 0 : 1);
+    }
+}
@@ -0,0 +1,111 @@
+package banking.test;
+
+import banking.dao.TransactionQuery;
+import banking.dao.impl.DataFiles;
+import banking.dao.impl.TextFileAccountDAO;
+import banking.dao.impl.TextFileCustomerDAO;
+import banking.dao.impl.TextFileTransactionDAO;
+import banking.model.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Test that loading all accounts reads each data file at most once,
+ * and that transaction history is only read when it is asked for
+ * Run with -Dbanking.data.dir pointing at an empty scratch directory
+ * (a temporary one is used when the property is not set)
+ */
+public class TestAccountBatchLoading {
+    private static int failures = 0;
+    private static int transactionReads = 0;
+
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("banking.data.dir") == null) {
+            System.setProperty("banking.data.dir", Files.createTempDirectory("banking-test").toString());
+        }
+        System.out.println("=== ACCOUNT BATCH LOADING TEST ===\n");
+
+        Path dataDir = Path.of(DataFiles.DATA_DIR);
+        Files.createDirectories(dataDir);
+        Files.write(dataDir.resolve("customers.txt"), List.of(
+                "CUST001|INDIVIDUAL|Jacob|Smith|ID123456|Plot 123, Gaborone|71234567|jacob@email.com",
+                "CUST002|COMPANY|TechSolutions Ltd|BW000123456|Plot 321, Gaborone CBD|3901234|info@techsolutions.bw"));
+        Files.write(dataDir.resolve("accounts.txt"), List.of(
+                "ACC001|CUST001|SavingsAccount|2000.00|Main Branch||",
+                "ACC002|CUST001|InvestmentAccount|6000.00|Main Branch||",
+                "ACC003|CUST001|CheckingAccount|5000.00|Main Branch|Tech Solutions Ltd|Plot 789, Gaborone",
+                "ACC004|CUST002|SavingsAccount|50000.00|Main Branch||"));
+        Files.write(dataDir.resolve("transactions.txt"), List.of(
+                "TXN1|ACC001|DEPOSIT|500.00|2000.00|2025-10-01 09:00:00",
+                "TXN2|ACC002|DEPOSIT|1000.00|6000.00|2025-10-01 09:05:00",
+                "TXN3|ACC001|INTEREST|1.00|2001.00|2025-10-31 23:59:00"));
+
+        TextFileAccountDAO accountDAO = new TextFileAccountDAO(new TextFileCustomerDAO(), new CountingTransactionDAO());
+        DataFiles.resetReadOpenCounts();
+        transactionReads = 0;
+        List<Account> accounts = accountDAO.findAllAccounts();
+
+        System.out.println("--- File opens for one load ---");
+        check("accounts.txt opened once", DataFiles.getReadOpenCount(DataFiles.path("accounts.txt")) == 1);
+        check("customers.txt opened once", DataFiles.getReadOpenCount(DataFiles.path("customers.txt")) == 1);
+        check("transactions not read", transactionReads == 0);
+
+        System.out.println("\n--- Joined data ---");
+        check("all accounts loaded", accounts.size() == 4);
+        Account savings = accounts.get(0);
+        check("customer joined", savings.getCustomer().getName().equals("Jacob Smith"));
+        check("transactions loaded on first access", savings.getTransactions().size() == 2
+                && accounts.get(1).getTransactions().size() == 1
+                && accounts.get(2).getTransactions().isEmpty());
+        check("history read once per account asked for", transactionReads == 3);
+        savings.getTransactions();
+        check("history not read again", transactionReads == 3);
+
+        System.out.println("\n--- Customer changed on disk ---");
+        Customer customer = savings.getCustomer();
+        Files.write(dataDir.resolve("customers.txt"), List.of(
+                "CUST001|INDIVIDUAL|Jacob|Smith-Moyo|ID123456|Plot 9, Francistown|71234567|jacob@email.com",
+                "CUST002|COMPANY|TechSolutions Ltd|BW000123456|Plot 321, Gaborone CBD|3901234|info@techsolutions.bw"));
+        Customer reloaded = accountDAO.findAllAccounts().get(0).getCustomer();
+        check("same customer instance after reload", reloaded == customer);
+        check("instance shows the new details", customer.getName().equals("Jacob Smith-Moyo")
+                && customer.getAddress().equals("Plot 9, Francistown"));
+
+        System.out.println("\n=== TEST " + (failures == 0 ? "COMPLETE" : "FAILED: " + failures + " check(s)") + " ===");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Counts every read of the transaction store, whichever way the loader goes about it
+     */
+    private static class CountingTransactionDAO extends TextFileTransactionDAO {
+        @Override
+        public List<Transaction> findTransactionsByAccount(String accountNumber) {
+            transactionReads++;
+            return super.findTransactionsByAccount(accountNumber);
+        }
+
+        @Override
+        public long countTransactions(String accountNumber) {
+            transactionReads++;
+            return super.countTransactions(accountNumber);
+        }
+
+        @Override
+        public Stream<Transaction> streamTransactions(TransactionQuery query) {
+            transactionReads++;
+            return super.streamTransactions(query);
+        }
+    }
+
+    private static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS: " : "FAIL: ") + description);
+        if (!passed) failures++;
+    }
+}
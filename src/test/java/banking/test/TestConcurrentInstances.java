@@ -0,0 +1,182 @@
+package banking.test;
+
+import banking.dao.impl.TextFileAccountDAO;
+import banking.dao.impl.TextFileTransactionDAO;
+import banking.model.Account;
+import banking.model.Money;
+import banking.model.Transaction;
+import banking.util.IdGenerator;
+import banking.util.PostingEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test several instances (separate JVMs) posting to the same accounts in one data directory at once.
+ * Each instance reports the net effect of the postings it saw succeed; afterwards every saved balance
+ * must equal the opening balance plus those reports, and each account's ledger must add up to it too,
+ * so no posting was lost or applied twice. The journal is compacted every second while they run.
+ * Run with -Dbanking.data.dir pointing at an empty scratch directory
+ * (a temporary one is used when the property is not set)
+ * Usage: TestConcurrentInstances [instances] [postings per instance]
+ */
+public class TestConcurrentInstances {
+    private static final String[] ACCOUNTS = {"ACC001", "ACC002", "ACC003", "ACC004", "ACC005"};
+    private static final long OPENING_BALANCE = Money.ofPula(100_000);
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("worker")) {
+            worker(Integer.parseInt(args[1]), Long.parseLong(args[2]));
+            return;
+        }
+
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int postings = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        if (System.getProperty("banking.data.dir") == null) {
+            System.setProperty("banking.data.dir", Files.createTempDirectory("banking-test").toString());
+        }
+        String dataDir = System.getProperty("banking.data.dir");
+        System.out.println("=== CONCURRENT INSTANCES TEST === (" + instances + " instances x " + postings + " postings)\n");
+
+        Path dir = Path.of(dataDir);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("customers.txt"), List.of(
+                "CUST001|COMPANY|TechSolutions Ltd|BW000123456|Plot 321, Gaborone CBD|3901234|info@techsolutions.bw"));
+        List<String> accountLines = new ArrayList<>();
+        for (String accountNumber : ACCOUNTS) {
+            accountLines.add(accountNumber + "|CUST001|CheckingAccount|" + Money.format(OPENING_BALANCE)
+                    + "|Main Branch|TechSolutions Ltd|Plot 321, Gaborone CBD");
+        }
+        Files.write(dir.resolve("accounts.txt"), accountLines);
+
+        // Start every instance, then collect what each one says it posted
+        List<Process> processes = new ArrayList<>();
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        for (int i = 0; i < instances; i++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "-Dbanking.data.dir=" + dataDir, "-Dbanking.journal.compactSeconds=1",
+                    TestConcurrentInstances.class.getName(), "worker", String.valueOf(postings), String.valueOf(i))
+                    .redirectErrorStream(true)
+                    .start());
+        }
+
+        Map<String, Long> expected = new HashMap<>();
+        int succeeded = 0;
+        int workerFailures = 0;
+        for (Process process : processes) {
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    String[] parts = line.split("\\|");
+                    if (parts[0].equals("NET")) {
+                        expected.merge(parts[1], Long.parseLong(parts[2]), Long::sum);
+                    } else if (parts[0].equals("POSTED")) {
+                        succeeded += Integer.parseInt(parts[1]);
+                    } else if (line.contains("Exception") || line.startsWith("Posting")) {
+                        System.out.println("  instance: " + line);
+                    }
+                }
+            }
+            if (process.waitFor() != 0) workerFailures++;
+        }
+        System.out.println(succeeded + " of " + instances * postings + " postings succeeded\n");
+        check("every instance finished", workerFailures == 0);
+
+        // A fresh instance reads the result back from the files
+        TextFileAccountDAO accountDAO = new TextFileAccountDAO();
+        TextFileTransactionDAO transactionDAO = new TextFileTransactionDAO();
+        boolean balancesMatch = true;
+        boolean ledgerMatches = true;
+        Set<String> transactionIds = new HashSet<>();
+        int ledgerCount = 0;
+        for (Account account : accountDAO.findAllAccounts()) {
+            long balance = account.getBalanceThebe();
+            balancesMatch &= balance == OPENING_BALANCE + expected.getOrDefault(account.getAccountNumber(), 0L);
+
+            long ledgerBalance = OPENING_BALANCE;
+            for (Transaction transaction : transactionDAO.findTransactionsByAccount(account.getAccountNumber())) {
+                ledgerBalance += transaction.getType().equals("WITHDRAWAL")
+                        ? -transaction.getAmountThebe() : transaction.getAmountThebe();
+                transactionIds.add(transaction.getTransactionId());
+                ledgerCount++;
+            }
+            ledgerMatches &= ledgerBalance == balance;
+            System.out.println("  " + account.getAccountNumber() + ": " + Money.format(balance));
+        }
+        System.out.println();
+        check("saved balances equal opening balances plus every reported posting", balancesMatch);
+        check("each account's ledger adds up to its balance", ledgerMatches);
+        check("no transaction saved twice", transactionIds.size() == ledgerCount);
+        transactionDAO.close();
+
+        System.out.println("\n=== TEST " + (failures == 0 ? "COMPLETE" : "FAILED: " + failures + " check(s)") + " ===");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    /**
+     * One instance: random deposits, withdrawals and transfers between the shared accounts,
+     * printing the net change it saw succeed per account ("NET|account|thebe")
+     */
+    private static void worker(int postings, long seed) throws IOException {
+        Account.setTransactionIdSupplier(IdGenerator.getInstance()::nextTransactionId);
+        TextFileAccountDAO accountDAO = new TextFileAccountDAO();
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountDAO.findAllAccounts()) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        PostingEngine engine = new PostingEngine(accountDAO);
+
+        Random random = new Random(seed);
+        Map<String, Long> net = new HashMap<>();
+        int succeeded = 0;
+        for (int i = 0; i < postings; i++) {
+            Account account = accounts.get(ACCOUNTS[random.nextInt(ACCOUNTS.length)]);
+            long amount = Money.ofPula(1 + random.nextInt(100));
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (engine.deposit(account, Money.toPula(amount))) {
+                        net.merge(account.getAccountNumber(), amount, Long::sum);
+                        succeeded++;
+                    }
+                    break;
+                case 1:
+                    if (engine.withdraw(account, Money.toPula(amount))) {
+                        net.merge(account.getAccountNumber(), -amount, Long::sum);
+                        succeeded++;
+                    }
+                    break;
+                default:
+                    Account target = accounts.get(ACCOUNTS[random.nextInt(ACCOUNTS.length)]);
+                    if (target != account && engine.transfer(account, target, Money.toPula(amount))) {
+                        net.merge(account.getAccountNumber(), -amount, Long::sum);
+                        net.merge(target.getAccountNumber(), amount, Long::sum);
+                        succeeded++;
+                    }
+                    break;
+            }
+        }
+
+        for (Map.Entry<String, Long> entry : net.entrySet()) {
+            System.out.println("NET|" + entry.getKey() + "|" + entry.getValue());
+        }
+        System.out.println("POSTED|" + succeeded);
+        System.exit(0);
+    }
+
+    private static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS: " : "FAIL: ") + description);
+        if (!passed) failures++;
+    }
+}
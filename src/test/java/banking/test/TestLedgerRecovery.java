@@ -0,0 +1,94 @@
+package banking.test;
+
+import banking.dao.impl.AccountJournal;
+import banking.dao.impl.DataFiles;
+import banking.dao.impl.TextFileAccountDAO;
+import banking.dao.impl.TextFileCustomerDAO;
+import banking.dao.impl.TextFileTransactionDAO;
+import banking.model.Account;
+import banking.model.Money;
+import banking.model.Transaction;
+import banking.util.PostingEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test that transactions committed to the account journal survive a failed ledger write:
+ * the posting stands, the journal is not compacted away before the transactions are
+ * re-applied to the ledger, and they end up there exactly once.
+ * Run with -Dbanking.data.dir pointing at an empty scratch directory
+ * (a temporary one is used when the property is not set)
+ */
+public class TestLedgerRecovery {
+    private static int failures = 0;
+    private static boolean ledgerFailing;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("banking.data.dir") == null) {
+            System.setProperty("banking.data.dir", Files.createTempDirectory("banking-test").toString());
+        }
+        System.out.println("=== LEDGER RECOVERY TEST ===\n");
+
+        Path dir = Path.of(System.getProperty("banking.data.dir"));
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("customers.txt"), List.of(
+                "CUST001|INDIVIDUAL|Jacob|Smith|ID123456|Plot 123, Gaborone|71234567|jacob@email.com"));
+        Files.write(dir.resolve("accounts.txt"), List.of(
+                "ACC001|CUST001|CheckingAccount|1000.00|Main Branch|Tech Ltd|Plot 789"));
+
+        TextFileAccountDAO accountDAO = new TextFileAccountDAO(new TextFileCustomerDAO(), new FailingTransactionDAO());
+        PostingEngine engine = new PostingEngine(accountDAO);
+        Account account = accountDAO.findAccountByNumber("ACC001");
+
+        ledgerFailing = true;
+        check("deposit stands when the ledger write fails", engine.deposit(account, 250));
+        check("balance saved", new TextFileAccountDAO().findAccountByNumber("ACC001").getBalanceThebe()
+                == Money.ofPula(1250));
+        check("transaction not in the ledger yet", ledgerCount("ACC001") == 0);
+
+        boolean compacted = true;
+        try {
+            AccountJournal.compact();
+        } catch (IOException e) {
+            compacted = false;
+        }
+        check("compaction refused while the ledger still fails", !compacted);
+        check("journal kept", Files.size(Path.of(DataFiles.path("accounts.journal"))) > 0);
+
+        ledgerFailing = false;
+        AccountJournal.compact();
+        check("transaction re-applied before compacting", ledgerCount("ACC001") == 1);
+        check("journal compacted", Files.size(Path.of(DataFiles.path("accounts.journal"))) == 0);
+
+        check("later postings saved", engine.deposit(account, 10) && ledgerCount("ACC001") == 2);
+        AccountJournal.compact();
+        check("nothing re-applied twice", ledgerCount("ACC001") == 2);
+
+        System.out.println("\n=== TEST " + (failures == 0 ? "COMPLETE" : "FAILED: " + failures + " check(s)") + " ===");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    private static int ledgerCount(String accountNumber) {
+        return new TextFileTransactionDAO().findTransactionsByAccount(accountNumber).size();
+    }
+
+    private static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS: " : "FAIL: ") + description);
+        if (!passed) failures++;
+    }
+
+    /**
+     * Fails every ledger write while ledgerFailing is set, as a full disk would
+     */
+    private static class FailingTransactionDAO extends TextFileTransactionDAO {
+        @Override
+        public void writeTransactions(Map<String, List<Transaction>> transactionsByAccount) throws IOException {
+            if (ledgerFailing) throw new IOException("No space left on device");
+            super.writeTransactions(transactionsByAccount);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package banking.test;
+
+import banking.dao.AccountDAO;
+import banking.model.Account;
+import banking.model.AccountLocks;
+import banking.model.CheckingAccount;
+import banking.model.IndividualCustomer;
+import banking.model.InvestmentAccount;
+import banking.model.Money;
+import banking.util.PostingEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test PostingEngine and AccountLocks against an in-memory AccountDAO: transfers, overdrafts,
+ * rollback of both legs when the save fails, and conservation of money under concurrent transfers
+ */
+public class TestPostingEngine {
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== POSTING ENGINE TEST ===\n");
+        IndividualCustomer customer = new IndividualCustomer("CUST001", "John", "Doe", "123456789",
+                "Plot 123, Gaborone", "71234567", "john@email.com");
+
+        System.out.println("--- Transfer ---");
+        MemoryAccountDAO dao = new MemoryAccountDAO();
+        PostingEngine engine = new PostingEngine(dao);
+        Account checking = new CheckingAccount("ACC001", 1000, "Main Branch", customer, "Tech Ltd", "Plot 789");
+        Account investment = new InvestmentAccount("ACC002", 1000, "Main Branch", customer);
+        dao.saveAccount(checking);
+        dao.saveAccount(investment);
+        check("transfer succeeds", engine.transfer(checking, investment, 400));
+        check("source debited", checking.getBalanceThebe() == Money.ofPula(600));
+        check("target credited", investment.getBalanceThebe() == Money.ofPula(1400));
+        check("both legs saved in one update", dao.updates == 1
+                && dao.saved.get("ACC001") == Money.ofPula(600) && dao.saved.get("ACC002") == Money.ofPula(1400));
+        check("both transactions marked saved",
+                checking.getUnsavedTransactions().isEmpty() && investment.getUnsavedTransactions().isEmpty());
+        check("transfer to the same account refused", !engine.transfer(checking, checking, 10));
+
+        System.out.println("\n--- Overdraft ---");
+        check("withdrawal past the balance refused", !engine.withdraw(checking, 600.01));
+        check("transfer past the balance refused", !engine.transfer(checking, investment, 1000));
+        check("withdrawal below the minimum balance refused", !engine.withdraw(investment, 900.01));
+        check("balances unchanged",
+                checking.getBalanceThebe() == Money.ofPula(600) && investment.getBalanceThebe() == Money.ofPula(1400));
+        check("nothing saved for refused postings", dao.updates == 1);
+        check("withdrawal of the whole balance allowed", engine.withdraw(checking, 600));
+        check("balance is zero", checking.getBalanceThebe() == 0);
+
+        System.out.println("\n--- Failed save ---");
+        dao.failing = true;
+        check("deposit reports failure", !engine.deposit(checking, 50));
+        check("deposit rolled back", checking.getBalanceThebe() == 0 && checking.getUnsavedTransactions().isEmpty());
+        check("transfer reports failure", !engine.transfer(investment, checking, 100));
+        check("both legs rolled back",
+                investment.getBalanceThebe() == Money.ofPula(1400) && checking.getBalanceThebe() == 0
+                        && investment.getUnsavedTransactions().isEmpty() && checking.getUnsavedTransactions().isEmpty());
+        dao.failing = false;
+        check("postings work again once saves do", engine.transfer(investment, checking, 100)
+                && dao.saved.get("ACC001") == Money.ofPula(100) && dao.saved.get("ACC002") == Money.ofPula(1300));
+
+        System.out.println("\n--- Concurrent transfers ---");
+        MemoryAccountDAO concurrentDao = new MemoryAccountDAO();
+        PostingEngine concurrentEngine = new PostingEngine(concurrentDao);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Account account = new CheckingAccount(String.format("ACC1%02d", i), 100, "Main Branch", customer, "Tech Ltd", "Plot 789");
+            concurrentDao.saveAccount(account);
+            accounts.add(account);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long seed = t;
+            workers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2_000; i++) {
+                    Account source = accounts.get(random.nextInt(accounts.size()));
+                    Account target = accounts.get(random.nextInt(accounts.size()));
+                    concurrentEngine.transfer(source, target, 1 + random.nextInt(30));
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        long total = 0;
+        long savedTotal = 0;
+        boolean overdrawn = false;
+        for (Account account : accounts) {
+            total += account.getBalanceThebe();
+            savedTotal += concurrentDao.saved.get(account.getAccountNumber());
+            overdrawn |= account.getBalanceThebe() < 0;
+        }
+        check("money is conserved", total == Money.ofPula(800));
+        check("saved balances match", savedTotal == total);
+        check("no account overdrawn", !overdrawn);
+        check("no account lock left held", accounts.stream()
+                .noneMatch(account -> AccountLocks.lockFor(account.getAccountNumber()).isLocked()));
+
+        System.out.println("\n=== TEST " + (failures == 0 ? "COMPLETE" : "FAILED: " + failures + " check(s)") + " ===");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    private static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS: " : "FAIL: ") + description);
+        if (!passed) failures++;
+    }
+
+    /**
+     * Keeps each account's saved balance in memory; refreshAccounts restores it.
+     * While failing is set, updates throw as a DAO does when the files cannot be written
+     */
+    private static class MemoryAccountDAO implements AccountDAO {
+        final Map<String, Long> saved = new HashMap<>();
+        volatile boolean failing;
+        int updates;
+
+        @Override
+        public void saveAccount(Account account) {
+            saved.put(account.getAccountNumber(), account.getBalanceThebe());
+        }
+
+        @Override
+        public Account findAccountByNumber(String accountNumber) {
+            return null;
+        }
+
+        @Override
+        public List<Account> findAccountsByCustomer(String customerId) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Account> findAllAccounts() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void updateAccount(Account account) {
+            updateAccounts(List.of(account));
+        }
+
+        @Override
+        public synchronized void updateAccounts(Collection<Account> accounts) {
+            if (failing) {
+                throw new UncheckedIOException("Error updating " + accounts.size() + " accounts",
+                        new IOException("disk full"));
+            }
+            for (Account account : accounts) {
+                saved.put(account.getAccountNumber(), account.getBalanceThebe());
+                account.markTransactionsSaved(account.getUnsavedTransactions());
+            }
+            updates++;
+        }
+
+        @Override
+        public synchronized void refreshAccounts(Collection<Account> accounts) {
+            for (Account account : accounts) {
+                account.restore(saved.get(account.getAccountNumber()), account.getLastInterestPeriod(),
+                        account.getVersion(), ArrayList::new);
+            }
+        }
+    }
+}
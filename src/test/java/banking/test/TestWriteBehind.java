@@ -0,0 +1,285 @@
+package banking.test;
+
+import banking.dao.AccountDAO;
+import banking.dao.ConcurrentUpdateException;
+import banking.dao.impl.WriteBehindAccountDAO;
+import banking.model.Account;
+import banking.model.CheckingAccount;
+import banking.model.IndividualCustomer;
+import banking.model.Money;
+import banking.model.SavingsAccount;
+import banking.model.Transaction;
+import banking.util.PostingEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Test WriteBehindAccountDAO against an in-memory AccountDAO: coalescing of repeated updates,
+ * back-pressure at maxDirty, the flush on close, and replay of unflushed postings when another
+ * instance saved an account first or a write-through failed
+ */
+public class TestWriteBehind {
+    private static final long NEVER = 60_000; // flush interval long enough that only thresholds and calls flush
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== WRITE-BEHIND TEST ===\n");
+        IndividualCustomer customer = new IndividualCustomer("CUST001", "John", "Doe", "123456789",
+                "Plot 123, Gaborone", "71234567", "john@email.com");
+
+        System.out.println("--- Coalescing ---");
+        MemoryAccountDAO dao = new MemoryAccountDAO();
+        WriteBehindAccountDAO writeBehind = new WriteBehindAccountDAO(dao, NEVER, 1_000, 1_000);
+        PostingEngine engine = new PostingEngine(writeBehind);
+        Account first = checking(dao, "ACC001", 1000, customer);
+        Account second = checking(dao, "ACC002", 1000, customer);
+        boolean posted = true;
+        for (int i = 0; i < 100; i++) {
+            posted &= engine.deposit(first, 10) && engine.withdraw(second, 5);
+        }
+        check("postings succeed", posted);
+        check("nothing written before the flush", dao.batches.isEmpty());
+        check("two dirty accounts for 200 updates", writeBehind.getDirtyCount() == 2);
+        check("flush leaves nothing dirty", writeBehind.flush() == 0);
+        check("one batch of two accounts written", dao.batches.equals(List.of(2)));
+        check("latest balances saved", dao.saved.get("ACC001") == Money.ofPula(2000)
+                && dao.saved.get("ACC002") == Money.ofPula(500));
+        check("every transaction saved", dao.savedTransactions.size() == 200
+                && first.getUnsavedTransactions().isEmpty() && second.getUnsavedTransactions().isEmpty());
+        writeBehind.close();
+
+        System.out.println("\n--- Back-pressure ---");
+        MemoryAccountDAO slowDao = new MemoryAccountDAO();
+        WriteBehindAccountDAO bounded = new WriteBehindAccountDAO(slowDao, NEVER, 3, 3);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            accounts.add(checking(slowDao, String.format("ACC1%02d", i), 100, customer));
+        }
+        slowDao.stall();
+        for (int i = 0; i < 3; i++) {
+            update(bounded, accounts.get(i)); // Reaches the threshold: the flusher takes these and stalls
+        }
+        slowDao.awaitStalled();
+        for (int i = 3; i < 6; i++) {
+            update(bounded, accounts.get(i));
+        }
+        Thread blocked = new Thread(() -> update(bounded, accounts.get(6)));
+        blocked.start();
+        blocked.join(300);
+        check("update blocks while maxDirty accounts wait for the flusher", blocked.isAlive());
+        check("dirty count stays at maxDirty", bounded.getDirtyCount() == 3);
+        check("an account already dirty does not block", run(() -> update(bounded, accounts.get(4))));
+        slowDao.release();
+        blocked.join(5_000);
+        check("update proceeds once the flusher catches up", !blocked.isAlive());
+        bounded.close();
+        check("every account saved", accounts.stream()
+                .allMatch(account -> slowDao.saved.get(account.getAccountNumber()) == account.getBalanceThebe()
+                        && account.getUnsavedTransactions().isEmpty()));
+
+        System.out.println("\n--- Flush on close ---");
+        MemoryAccountDAO closeDao = new MemoryAccountDAO();
+        WriteBehindAccountDAO closing = new WriteBehindAccountDAO(closeDao, NEVER, 1_000, 1_000);
+        PostingEngine closingEngine = new PostingEngine(closing);
+        Account third = checking(closeDao, "ACC003", 1000, customer);
+        closingEngine.deposit(third, 250);
+        check("deposit still dirty", closing.getDirtyCount() == 1 && closeDao.batches.isEmpty());
+        closing.close();
+        check("close writes it", closeDao.saved.get("ACC003") == Money.ofPula(1250)
+                && closing.getDirtyCount() == 0);
+        closingEngine.deposit(third, 50);
+        check("updates after close are written straight through", closeDao.saved.get("ACC003") == Money.ofPula(1300));
+
+        System.out.println("\n--- Replay after another instance's update ---");
+        MemoryAccountDAO sharedDao = new MemoryAccountDAO();
+        WriteBehindAccountDAO replaying = new WriteBehindAccountDAO(sharedDao, NEVER, 1_000, 1_000);
+        PostingEngine replayingEngine = new PostingEngine(replaying);
+        Account fourth = checking(sharedDao, "ACC004", 1000, customer);
+        replayingEngine.deposit(fourth, 100);
+        replayingEngine.withdraw(fourth, 30);
+        List<String> postedIds = transactionIds(fourth.getUnsavedTransactions());
+        sharedDao.otherInstanceSaves("ACC004", Money.ofPula(1500), "");
+
+        Account savings = new SavingsAccount("ACC005", 10_000, "Main Branch", customer);
+        sharedDao.saveAccount(savings);
+        long interest = savings.creditInterest("2026-09");
+        replaying.updateAccount(savings);
+        sharedDao.otherInstanceSaves("ACC005", Money.ofPula(10_000) + interest, "2026-09");
+
+        check("conflicting flush keeps the accounts dirty", replaying.flush() == 2 && sharedDao.savedTransactions.isEmpty());
+        check("postings replayed on the other instance's balance", fourth.getBalanceThebe() == Money.ofPula(1570));
+        check("interest already paid for the period not credited twice",
+                savings.getBalanceThebe() == Money.ofPula(10_000) + interest && savings.getUnsavedTransactions().isEmpty());
+        check("next flush writes them", replaying.flush() == 0
+                && sharedDao.saved.get("ACC004") == Money.ofPula(1570)
+                && sharedDao.saved.get("ACC005") == Money.ofPula(10_000) + interest);
+        check("replayed transactions keep their IDs", sharedDao.savedTransactions.equals(postedIds));
+        replaying.close();
+
+        System.out.println("\n--- Failed write-through keeps earlier postings ---");
+        Account fifth = checking(sharedDao, "ACC006", 1000, customer);
+        Account sixth = checking(sharedDao, "ACC007", 1000, customer);
+        WriteBehindAccountDAO rollingBack = new WriteBehindAccountDAO(sharedDao, NEVER, 1_000, 1_000);
+        PostingEngine rollingBackEngine = new PostingEngine(rollingBack);
+        rollingBackEngine.deposit(fifth, 200);
+        sharedDao.failing = true;
+        check("transfer reports failure", !rollingBackEngine.transfer(fifth, sixth, 100));
+        sharedDao.failing = false;
+        check("transfer rolled back, unflushed deposit kept", fifth.getBalanceThebe() == Money.ofPula(1200)
+                && sixth.getBalanceThebe() == Money.ofPula(1000) && fifth.getUnsavedTransactions().size() == 1);
+        sharedDao.otherInstanceSaves("ACC006", Money.ofPula(1500), "");
+        check("transfer retried after a conflict", rollingBackEngine.transfer(fifth, sixth, 100));
+        check("deposit replayed before the retry", sharedDao.saved.get("ACC006") == Money.ofPula(1600)
+                && sharedDao.saved.get("ACC007") == Money.ofPula(1100));
+        rollingBack.close();
+        check("deposit saved once", sharedDao.saved.get("ACC006") == Money.ofPula(1600));
+
+        System.out.println("\n=== TEST " + (failures == 0 ? "COMPLETE" : "FAILED: " + failures + " check(s)") + " ===");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    private static Account checking(MemoryAccountDAO dao, String accountNumber, double balance,
+                                    IndividualCustomer customer) {
+        Account account = new CheckingAccount(accountNumber, balance, "Main Branch", customer, "Tech Ltd", "Plot 789");
+        dao.saveAccount(account);
+        return account;
+    }
+
+    private static void update(AccountDAO dao, Account account) {
+        account.deposit(10);
+        dao.updateAccount(account);
+    }
+
+    /**
+     * Run an action on another thread, reporting whether it finished within a second
+     */
+    private static boolean run(Runnable action) throws InterruptedException {
+        Thread thread = new Thread(action);
+        thread.start();
+        thread.join(1_000);
+        return !thread.isAlive();
+    }
+
+    private static List<String> transactionIds(List<Transaction> transactions) {
+        List<String> ids = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getTransactionId());
+        }
+        return ids;
+    }
+
+    private static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS: " : "FAIL: ") + description);
+        if (!passed) failures++;
+    }
+
+    /**
+     * Keeps each account's saved balance, interest period and version in memory, refusing updates
+     * based on an older version as the journal does. otherInstanceSaves stands in for another
+     * instance; stall makes the next update wait until release
+     */
+    private static class MemoryAccountDAO implements AccountDAO {
+        final Map<String, Long> saved = new HashMap<>();
+        final Map<String, String> periods = new HashMap<>();
+        final Map<String, Long> versions = new HashMap<>();
+        final List<Integer> batches = new ArrayList<>();
+        final List<String> savedTransactions = new ArrayList<>();
+        private final Semaphore stalled = new Semaphore(0);
+        private final Semaphore gate = new Semaphore(0);
+        private volatile boolean stalling;
+        volatile boolean failing;
+
+        @Override
+        public synchronized void saveAccount(Account account) {
+            saved.put(account.getAccountNumber(), account.getBalanceThebe());
+            periods.put(account.getAccountNumber(), account.getLastInterestPeriod());
+            versions.put(account.getAccountNumber(), account.getVersion());
+        }
+
+        @Override
+        public Account findAccountByNumber(String accountNumber) {
+            return null;
+        }
+
+        @Override
+        public List<Account> findAccountsByCustomer(String customerId) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Account> findAllAccounts() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void updateAccount(Account account) {
+            updateAccounts(List.of(account));
+        }
+
+        @Override
+        public void updateAccounts(Collection<Account> accounts) {
+            if (stalling) {
+                stalling = false;
+                stalled.release();
+                gate.acquireUninterruptibly();
+            }
+            if (failing) {
+                throw new UncheckedIOException("Error updating " + accounts.size() + " accounts",
+                        new IOException("disk full"));
+            }
+            synchronized (this) {
+                List<String> stale = new ArrayList<>();
+                for (Account account : accounts) {
+                    if (account.getVersion() != versions.get(account.getAccountNumber())) {
+                        stale.add(account.getAccountNumber());
+                    }
+                }
+                if (!stale.isEmpty()) throw new ConcurrentUpdateException(stale);
+
+                for (Account account : accounts) {
+                    List<Transaction> unsaved = account.getUnsavedTransactions();
+                    account.setVersion(account.getVersion() + 1);
+                    saveAccount(account);
+                    savedTransactions.addAll(transactionIds(unsaved));
+                    account.markTransactionsSaved(unsaved);
+                }
+                batches.add(accounts.size());
+            }
+        }
+
+        @Override
+        public synchronized void refreshAccounts(Collection<Account> accounts) {
+            for (Account account : accounts) {
+                String accountNumber = account.getAccountNumber();
+                account.restore(saved.get(accountNumber), periods.get(accountNumber), versions.get(accountNumber),
+                        ArrayList::new);
+            }
+        }
+
+        synchronized void otherInstanceSaves(String accountNumber, long balance, String period) {
+            saved.put(accountNumber, balance);
+            periods.put(accountNumber, period);
+            versions.merge(accountNumber, 1L, Long::sum);
+        }
+
+        void stall() {
+            stalling = true;
+        }
+
+        void awaitStalled() throws InterruptedException {
+            stalled.acquire();
+        }
+
+        void release() {
+            gate.release();
+        }
+    }
+}